@@ -0,0 +1,60 @@
+package com.Ash_Conversion.config;
+
+import com.Ash_Conversion.service.ConversionService;
+import com.Ash_Conversion.service.ExcelToPdfService;
+import com.Ash_Conversion.service.PdfTextExtractor;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Listener créant le moteur de conversion unique de l'application et l'arrêtant proprement.
+ * Les conversions en file sont conservées dans la base et reprises au démarrage suivant.
+ * Déclaré dans web.xml après DatabaseInitializer : il est donc détruit avant lui et les
+ * conversions en cours peuvent encore enregistrer leur résultat pendant l'arrêt.
+ * Il arrête aussi les pools statiques des convertisseurs (extraction PDF, feuilles Excel).
+ */
+public class ConversionEngineInitializer implements ServletContextListener {
+
+    public static final String CONVERSION_SERVICE_ATTRIBUTE = "conversionService";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionEngineInitializer.class);
+    private static volatile ConversionService conversionService;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        conversionService = new ConversionService();
+        // Reprise des conversions en file ou interrompues lors du dernier arrêt
+        conversionService.start();
+        sce.getServletContext().setAttribute(CONVERSION_SERVICE_ATTRIBUTE, conversionService);
+        logger.info("Moteur de conversion démarré");
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ConversionService service = conversionService;
+        if (service == null) {
+            return;
+        }
+        sce.getServletContext().removeAttribute(CONVERSION_SERVICE_ATTRIBUTE);
+        List<Long> notRun = service.shutdown();
+        if (!notRun.isEmpty()) {
+            logger.warn("{} conversion(s) à relancer après redémarrage: {}", notRun.size(), notRun);
+        }
+        // Pools partagés des convertisseurs : plus aucune conversion ne les utilise
+        PdfTextExtractor.shutdown();
+        ExcelToPdfService.shutdown();
+        conversionService = null;
+    }
+
+    public static ConversionService getConversionService() {
+        ConversionService service = conversionService;
+        if (service == null) {
+            throw new IllegalStateException("Moteur de conversion non initialisé");
+        }
+        return service;
+    }
+}
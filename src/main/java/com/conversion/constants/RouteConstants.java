@@ -22,9 +22,11 @@ public final class RouteConstants {
     public static final String API_FILES = "/api/files";
     public static final String API_FILES_UPLOAD = "/api/files/upload";
     public static final String API_CONVERT = "/api/convert";
+    public static final String API_CONVERT_CANCEL = "/api/convert/cancel";
     public static final String API_DOWNLOAD = "/api/download";
     public static final String API_PREVIEW = "/api/preview";
     public static final String API_SHARE = "/api/share";
+    public static final String API_METRICS = "/api/metrics";
     public static final String SHARE_PUBLIC = "/share";
 }
 
@@ -0,0 +1,86 @@
+package com.Ash_Conversion.controller;
+
+import com.Ash_Conversion.config.ConversionEngineInitializer;
+import com.Ash_Conversion.constants.RouteConstants;
+import com.Ash_Conversion.model.entity.FileJob;
+import com.Ash_Conversion.model.enums.ConversionStatus;
+import com.Ash_Conversion.service.ConversionService;
+import com.Ash_Conversion.service.FileJobService;
+import com.Ash_Conversion.util.JsonResponseUtil;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Servlet pour annuler une conversion en file ou en cours.
+ * Endpoint: POST /api/convert/cancel?id=...
+ */
+@WebServlet(name = "ConversionCancelServlet", urlPatterns = {RouteConstants.API_CONVERT_CANCEL})
+public class ConversionCancelServlet extends BaseController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConversionCancelServlet.class);
+    private final FileJobService fileJobService = new FileJobService();
+    private ConversionService conversionService;
+    
+    @Override
+    public void init() throws ServletException {
+        conversionService = ConversionEngineInitializer.getConversionService();
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        // Vérifier le token CSRF
+        if (!validateCsrfToken(request, response)) {
+            return; // Erreur déjà envoyée
+        }
+        
+        Long userId = requireAuthenticatedUser(request, response);
+        if (userId == null) {
+            return; // Erreur déjà envoyée
+        }
+        
+        Long fileId = parseFileId(request, response);
+        if (fileId == null) {
+            return; // Erreur déjà envoyée
+        }
+        
+        try {
+            // Récupérer le FileJob et vérifier la propriété
+            FileJob fileJob = fileJobService.findByIdAndOwner(fileId, userId);
+            if (fileJob == null) {
+                JsonResponseUtil.sendError(response, "Fichier introuvable ou accès non autorisé", 
+                                         HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            
+            // L'annulation est conditionnelle : la conversion a pu se terminer entre-temps
+            if (!conversionService.cancelConversion(fileId)) {
+                JsonResponseUtil.sendError(response, "Aucune conversion en file ou en cours pour ce fichier", 
+                                         HttpServletResponse.SC_CONFLICT);
+                return;
+            }
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("fileJobId", fileId);
+            data.put("status", ConversionStatus.CANCELLED.toString());
+            data.put("message", "Conversion annulée");
+            
+            JsonResponseUtil.sendSuccess(response, data);
+            logger.info("Conversion du FileJob {} annulée par utilisateur {}", fileId, userId);
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'annulation de la conversion", e);
+            JsonResponseUtil.sendError(response, "Erreur lors de l'annulation de la conversion", 
+                                     HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.Ash_Conversion.controller;
 
+import com.Ash_Conversion.config.ConversionEngineInitializer;
 import com.Ash_Conversion.constants.RouteConstants;
 import com.Ash_Conversion.exception.ConversionException;
 import com.Ash_Conversion.model.entity.FileJob;
@@ -8,6 +9,7 @@ import com.Ash_Conversion.model.enums.ConversionStatus;
 import com.Ash_Conversion.model.enums.ConversionType;
 import com.Ash_Conversion.service.ConversionService;
 import com.Ash_Conversion.service.FileJobService;
+import com.Ash_Conversion.service.SubmissionResult;
 import com.Ash_Conversion.service.UserService;
 import com.Ash_Conversion.util.FlashMessageUtil;
 import com.Ash_Conversion.util.JsonResponseUtil;
@@ -25,14 +27,24 @@ import java.util.Map;
 /**
  * Servlet pour gérer les conversions de fichiers.
  * Endpoint: /convert?id=...&to=docx|pdf|xlsx
+ * En-tête facultatif Idempotency-Key : une demande rejouée avec la même clé ne relance pas la conversion.
+ * File pleine : 429 avec un en-tête Retry-After.
  */
 @WebServlet(name = "ConversionServlet", urlPatterns = {RouteConstants.API_CONVERT})
 public class ConversionServlet extends BaseController {
     
     private static final Logger logger = LoggerFactory.getLogger(ConversionServlet.class);
-    private final ConversionService conversionService = new ConversionService();
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
     private final FileJobService fileJobService = new FileJobService();
     private final UserService userService = new UserService();
+    private ConversionService conversionService;
+    
+    @Override
+    public void init() throws ServletException {
+        // Moteur partagé par toute l'application (pool de threads unique)
+        conversionService = ConversionEngineInitializer.getConversionService();
+    }
     
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -49,6 +61,13 @@ public class ConversionServlet extends BaseController {
         }
         
         try {
+            // Refuser les nouvelles conversions pendant l'arrêt de l'application
+            if (!conversionService.isAccepting()) {
+                JsonResponseUtil.sendError(response, "Le service de conversion est en cours d'arrêt", 
+                                         HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            
             // Récupérer les paramètres
             String toParam = request.getParameter("to");
             if (toParam == null) {
@@ -70,9 +89,24 @@ public class ConversionServlet extends BaseController {
                 return;
             }
             
-            // Vérifier que le fichier peut être converti
-            if (fileJob.getStatus() != ConversionStatus.UPLOADED && 
-                fileJob.getStatus() != ConversionStatus.FAILED) {
+            // Clé d'idempotence facultative : une demande rejouée ne relance pas la conversion
+            String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+            if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 64)) {
+                JsonResponseUtil.sendError(response, "En-tête Idempotency-Key invalide (64 caractères maximum)", 
+                                         HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            
+            // Vérifier que le fichier peut être converti. Une demande en double (conversion déjà
+            // en file ou en cours, clé déjà utilisée) reçoit le statut actuel au lieu d'une erreur.
+            boolean duplicate = fileJob.getStatus() == ConversionStatus.QUEUED ||
+                                fileJob.getStatus() == ConversionStatus.PROCESSING ||
+                                (idempotencyKey != null && idempotencyKey.equals(fileJob.getSubmissionKey()));
+            if (!duplicate &&
+                fileJob.getStatus() != ConversionStatus.UPLOADED && 
+                fileJob.getStatus() != ConversionStatus.FAILED &&
+                fileJob.getStatus() != ConversionStatus.DEAD_LETTER &&
+                fileJob.getStatus() != ConversionStatus.CANCELLED) {
                 JsonResponseUtil.sendError(response, 
                     "Le fichier ne peut pas être converti dans son état actuel (statut: " + 
                     fileJob.getStatus() + ")", HttpServletResponse.SC_BAD_REQUEST);
@@ -88,23 +122,29 @@ public class ConversionServlet extends BaseController {
                 return;
             }
             
-            // Mettre à jour le type de conversion si nécessaire
-            if (fileJob.getConversionType() != targetType) {
-                fileJob.setConversionType(targetType);
-                fileJobService.update(fileJob);
-            }
+            // Le type de conversion est enregistré avec la mise en file
+            fileJob.setConversionType(targetType);
             
-            // Démarrer la conversion asynchrone
-            conversionService.startConversion(fileJob);
+            // Mettre la conversion en file (exécutée dès qu'un thread est libre), une seule fois
+            SubmissionResult result = conversionService.submit(fileJob, idempotencyKey);
+            if (result.outcome() == SubmissionResult.Outcome.REJECTED) {
+                // File pleine : refus immédiat, le client renouvelle sa demande plus tard
+                response.setHeader("Retry-After", String.valueOf(result.retryAfterSeconds()));
+                JsonResponseUtil.sendError(response, "Trop de conversions en attente, réessayez dans " + 
+                                         result.retryAfterSeconds() + " secondes", SC_TOO_MANY_REQUESTS);
+                return;
+            }
             
             Map<String, Object> data = new HashMap<>();
             data.put("fileJobId", fileJob.getId());
-            data.put("status", "PROCESSING");
-            data.put("message", "Conversion démarrée");
+            data.put("status", String.valueOf(result.status()));
+            data.put("duplicate", !result.isAccepted());
+            data.put("message", result.isAccepted() ? "Conversion mise en file" 
+                                                    : "Conversion déjà demandée");
             
             JsonResponseUtil.sendSuccess(response, data);
-            logger.info("Conversion démarrée pour FileJob: {} par utilisateur: {}", 
-                       fileId, userId);
+            logger.info("Demande de conversion pour FileJob: {} par utilisateur: {} ({})", 
+                       fileId, userId, result.outcome());
             
         } catch (Exception e) {
             logger.error("Erreur lors du démarrage de la conversion", e);
@@ -141,6 +181,13 @@ public class ConversionServlet extends BaseController {
             data.put("fileJobId", fileJob.getId());
             data.put("status", fileJob.getStatus().toString());
             data.put("errorMessage", fileJob.getErrorMessage());
+            // Tentatives (le premier essai compris) et prochain essai programmé après une erreur transitoire
+            data.put("attempts", fileJob.getAttempts());
+            data.put("retries", Math.max(0, fileJob.getAttempts() - 1));
+            data.put("nextAttemptAt", fileJob.getNextAttemptAt() != null ? fileJob.getNextAttemptAt().toString() : null);
+            if (fileJob.getErrorHistory() != null) {
+                data.put("errorHistory", fileJob.getErrorHistory().lines().toList());
+            }
             
             JsonResponseUtil.sendSuccess(response, data);
             
@@ -0,0 +1,57 @@
+package com.Ash_Conversion.controller;
+
+import com.Ash_Conversion.constants.RouteConstants;
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.JsonResponseUtil;
+import com.Ash_Conversion.util.MetricsRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Servlet exposant les métriques de l'application (compteurs, jauges, durées).
+ * Endpoint: GET /api/metrics
+ * Les métriques couvrent tout le processus (files, durées par type, tas, CPU) : l'endpoint est
+ * désactivé par défaut (metrics.enabled) et, activé, ne répond qu'aux requêtes locales
+ * (metrics.localhost.only), par exemple depuis un agent de supervision sur la même machine.
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = {RouteConstants.API_METRICS})
+public class MetricsServlet extends BaseController {
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        if (!ConfigUtil.getBooleanProperty("metrics.enabled", false)) {
+            JsonResponseUtil.sendError(response, "Endpoint non disponible", HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (ConfigUtil.getBooleanProperty("metrics.localhost.only", true) && !isLoopback(request.getRemoteAddr())) {
+            logger.warn("Accès aux métriques refusé depuis {}", request.getRemoteAddr());
+            JsonResponseUtil.sendError(response, "Accès refusé", HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        
+        // Vérifier l'authentification
+        Long userId = requireAuthenticatedUser(request, response);
+        if (userId == null) {
+            return; // Erreur déjà envoyée
+        }
+        
+        JsonResponseUtil.sendSuccess(response, MetricsRegistry.snapshot());
+    }
+    
+    private boolean isLoopback(String address) {
+        try {
+            // Adresse IP littérale : pas de résolution DNS
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,689 @@
+package com.Ash_Conversion.dao;
+
+import com.Ash_Conversion.config.DatabaseConfig;
+import com.Ash_Conversion.model.entity.FileJob;
+import com.Ash_Conversion.model.enums.ConversionStatus;
+import com.Ash_Conversion.model.enums.ConversionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DAO de la file de conversion persistante, portée par la table file_jobs.
+ * Une conversion demandée passe en QUEUED, puis un nœud la réserve (PROCESSING) avec un bail :
+ * lease_owner identifie le nœud, lease_until la fin du bail. Les dates sont celles de la base,
+ * commune à tous les nœuds.
+ * Plusieurs nœuds réservent dans la même table : les lignes sont verrouillées avec
+ * FOR UPDATE SKIP LOCKED (MySQL 8), si bien qu'un nœud n'attend jamais le lot d'un autre.
+ * Le nœud renouvelle le bail de ses conversions en cours ; une conversion dont le bail a expiré
+ * (nœud arrêté brutalement, thread bloqué) est remise en file ou passée en DEAD_LETTER.
+ * Une conversion remise en file avec next_attempt_at n'est réservée qu'à partir de cette date :
+ * la table sert de file à délai pour les nouveaux essais.
+ * L'ordre de réservation est l'ordre d'arrivée (FIFO) ou le plus court d'abord (SJF, sur le coût
+ * estimé à la mise en file, diminué avec l'attente). Avec la part équitable, les utilisateurs sont
+ * servis à tour de rôle dans cet ordre, chacun sous un plafond de conversions en cours.
+ * Le résultat d'une conversion n'est enregistré que si le nœud détient encore son bail : une
+ * conversion annulée, supprimée ou reprise ailleurs entre-temps n'est pas écrasée.
+ * Schéma : src/main/resources/sql/conversion_queue.sql
+ */
+public class ConversionQueueDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionQueueDAO.class);
+
+    private static final String READY_CONDITION =
+        "status = 'QUEUED' AND (next_attempt_at IS NULL OR next_attempt_at <= NOW())";
+
+    // Chaque type de conversion est réservé pour sa propre cloison (voir ConversionBulkhead)
+    private static final String READY_OF_TYPE = READY_CONDITION + " AND conversion_type = ?4";
+
+    // Verrouille les premières conversions en file, en sautant celles qu'un autre nœud est en train de réserver
+    private static final String LOCK_SQL =
+        "SELECT id FROM file_jobs WHERE " + READY_OF_TYPE + " ORDER BY queued_at, id LIMIT ?1 " +
+        "FOR UPDATE SKIP LOCKED";
+
+    // Plus court d'abord : coût estimé diminué de l'attente (vieillissement), en Ko équivalents
+    private static final String SJF_COST =
+        "COALESCE(estimated_cost, 0) - TIMESTAMPDIFF(SECOND, queued_at, NOW()) * ?2";
+    private static final String FIFO_COST = "0";
+
+    private static final String SJF_ORDER = SJF_COST + ", queued_at, id";
+
+    // Candidats lus sans verrou : trier toute la file sous FOR UPDATE verrouillerait chaque ligne lue
+    private static final String SJF_CANDIDATES_SQL =
+        "SELECT id FROM file_jobs WHERE " + READY_OF_TYPE + " ORDER BY " + SJF_ORDER + " LIMIT ?1";
+
+    private static final String SJF_LOCK_SQL =
+        "SELECT id FROM file_jobs WHERE id IN (%s) AND " + READY_CONDITION +
+        " ORDER BY " + SJF_ORDER + " LIMIT ?1 FOR UPDATE SKIP LOCKED";
+
+    // Part équitable : chaque utilisateur a un rang par conversion prête (1 pour sa première dans
+    // l'ordre de la file) ; on sert les rangs les plus bas en comptant ses conversions en cours,
+    // ce qui alterne entre utilisateurs. Un utilisateur au plafond de conversions en cours est sauté.
+    private static final String FAIR_CANDIDATES_SQL =
+        "SELECT q.id FROM (" +
+        "SELECT id, user_id, queued_at, %1$s AS cost, " +
+        "ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY %1$s, queued_at, id) AS user_rank " +
+        "FROM file_jobs WHERE " + READY_OF_TYPE + ") q " +
+        "LEFT JOIN (SELECT user_id, COUNT(*) AS running FROM file_jobs WHERE status = 'PROCESSING' " +
+        "GROUP BY user_id) r ON r.user_id = q.user_id " +
+        "WHERE ?3 <= 0 OR q.user_rank + COALESCE(r.running, 0) <= ?3 " +
+        "ORDER BY q.user_rank + COALESCE(r.running, 0), q.cost, q.queued_at, q.id LIMIT ?1";
+
+    private static final String FAIR_LOCK_SQL =
+        "SELECT id FROM file_jobs WHERE id IN (%s) AND " + READY_CONDITION + " FOR UPDATE SKIP LOCKED";
+
+    // Candidats lus par place libre : marge pour ceux qu'un autre nœud réserve au même moment
+    private static final int CANDIDATES_PER_SLOT = 4;
+
+    private static final String FINISHED_SINCE_SQL =
+        "SELECT COUNT(*) FROM file_jobs WHERE processed_at >= DATE_SUB(NOW(), INTERVAL ?1 SECOND) " +
+        "AND status IN ('COMPLETED', 'FAILED', 'DEAD_LETTER')";
+
+    private static final String CLAIM_SQL =
+        "UPDATE file_jobs SET status = 'PROCESSING', lease_owner = ?1, lease_token = ?2, " +
+        "lease_until = DATE_ADD(NOW(), INTERVAL ?3 SECOND), attempts = attempts + 1 " +
+        "WHERE id IN (%s)";
+
+    private static final String RENEW_SQL =
+        "UPDATE file_jobs SET lease_until = DATE_ADD(NOW(), INTERVAL ?2 SECOND) " +
+        "WHERE status = 'PROCESSING' AND lease_owner = ?1 AND id IN (%s)";
+
+    private static final String RETRY_SQL =
+        "UPDATE file_jobs SET status = 'QUEUED', next_attempt_at = DATE_ADD(NOW(), INTERVAL ?3 SECOND), " +
+        "error_message = ?4, error_history = CONCAT(COALESCE(error_history, ''), ?5), " +
+        "lease_owner = NULL, lease_token = NULL, lease_until = NULL " +
+        "WHERE id = ?1 AND status = 'PROCESSING' AND lease_owner = ?2";
+
+    // Bail expiré, ou conversion en cours sans bail
+    private static final String EXPIRED_CONDITION =
+        "(fj.leaseUntil IS NULL OR fj.leaseUntil < CURRENT_TIMESTAMP)";
+
+    /**
+     * Résultat d'une reprise de conversions dont le bail est perdu.
+     *
+     * @param requeued Conversions remises en file
+     * @param abandoned Conversions passées en DEAD_LETTER, leur nombre de tentatives étant épuisé
+     */
+    public record Recovery(int requeued, int abandoned) {
+    }
+
+    /**
+     * Ordre de réservation des conversions en file.
+     * FIFO : ordre d'arrivée. SJF : plus petit coût estimé d'abord, l'attente réduisant le coût
+     * pour qu'une grosse conversion finisse par passer devant les petites.
+     */
+    public enum QueueOrder {
+        FIFO,
+        SJF
+    }
+
+    private final QueueOrder order;
+    private final double agingPerSecond;
+    private final boolean fairShare;
+    private final int maxRunningPerUser;
+
+    /**
+     * File réservée dans l'ordre d'arrivée.
+     */
+    public ConversionQueueDAO() {
+        this(QueueOrder.FIFO, 0, false, 0);
+    }
+
+    /**
+     * @param order L'ordre de réservation
+     * @param agingPerSecond Coût retiré par seconde d'attente (SJF)
+     * @param fairShare true pour alterner entre utilisateurs, chacun dans l'ordre de réservation
+     * @param maxRunningPerUser Conversions en cours au plus par utilisateur, tous nœuds confondus
+     *                          (part équitable uniquement, 0 sans plafond)
+     */
+    public ConversionQueueDAO(QueueOrder order, double agingPerSecond, boolean fairShare, int maxRunningPerUser) {
+        this.order = order;
+        this.agingPerSecond = agingPerSecond;
+        this.fairShare = fairShare;
+        this.maxRunningPerUser = maxRunningPerUser;
+    }
+
+    public QueueOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Met un FileJob en file, en une seule requête conditionnelle.
+     * Sans effet si le FileJob est déjà en file ou en cours de conversion.
+     * Une nouvelle demande repart de zéro : tentatives et historique des erreurs sont effacés.
+     * Sans effet non plus si la demande rejoue la clé d'idempotence de la mise en file précédente.
+     *
+     * @param fileJobId L'ID du FileJob
+     * @param conversionType Le type de conversion demandé
+     * @param submissionKey La clé d'idempotence de la demande (null si le client n'en envoie pas)
+     * @param estimatedCost Le coût estimé de la conversion (ordre SJF), null s'il n'est pas estimé
+     * @return true si le FileJob a été mis en file
+     */
+    public boolean enqueue(Long fileJobId, ConversionType conversionType, String submissionKey,
+                           Long estimatedCost) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            int updated = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :queued, fj.conversionType = :type, " +
+                "fj.queuedAt = CURRENT_TIMESTAMP, fj.errorMessage = NULL, fj.errorHistory = NULL, " +
+                "fj.attempts = 0, fj.nextAttemptAt = NULL, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL, fj.submissionKey = :key, " +
+                "fj.estimatedCost = :cost " +
+                "WHERE fj.id = :id AND fj.status IN :enqueueable " +
+                "AND (:key IS NULL OR fj.submissionKey IS NULL OR fj.submissionKey <> :key)")
+                .setParameter("queued", ConversionStatus.QUEUED)
+                .setParameter("type", conversionType)
+                .setParameter("key", submissionKey)
+                .setParameter("cost", estimatedCost)
+                .setParameter("id", fileJobId)
+                .setParameter("enqueueable", List.of(ConversionStatus.UPLOADED,
+                                                     ConversionStatus.FAILED,
+                                                     ConversionStatus.DEAD_LETTER,
+                                                     ConversionStatus.CANCELLED,
+                                                     ConversionStatus.COMPLETED))
+                .executeUpdate();
+            transaction.commit();
+            logger.debug("FileJob {} mis en file: {}", fileJobId, updated == 1);
+            return updated == 1;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de la mise en file du FileJob: {}", fileJobId, e);
+            throw new RuntimeException("Erreur lors de la mise en file du FileJob", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Réserve jusqu'à limit conversions en file d'un type pour un nœud.
+     * Dans une même transaction : verrouillage des lignes libres, réservation du lot par un seul
+     * UPDATE marqué d'un jeton, puis relecture par ce jeton.
+     *
+     * @param owner L'identifiant du nœud
+     * @param limit Le nombre maximal de conversions à réserver
+     * @param leaseSeconds La durée du bail
+     * @param type Le type de conversion à réserver
+     * @return Les FileJobs réservés, passés en PROCESSING
+     */
+    public List<FileJob> claim(String owner, int limit, long leaseSeconds, ConversionType type) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        String token = UUID.randomUUID().toString();
+
+        try {
+            transaction.begin();
+            List<?> ids;
+            if (fairShare) {
+                ids = lockFairShare(em, limit, type);
+            } else if (order == QueueOrder.SJF) {
+                ids = lockShortestJobs(em, limit, type);
+            } else {
+                ids = em.createNativeQuery(LOCK_SQL)
+                    .setParameter(1, limit)
+                    .setParameter(4, type.name())
+                    .getResultList();
+            }
+
+            int claimed = 0;
+            if (!ids.isEmpty()) {
+                Query update = em.createNativeQuery(String.format(CLAIM_SQL, placeholders(4, ids.size())))
+                    .setParameter(1, owner)
+                    .setParameter(2, token)
+                    .setParameter(3, leaseSeconds);
+                for (int i = 0; i < ids.size(); i++) {
+                    update.setParameter(i + 4, ((Number) ids.get(i)).longValue());
+                }
+                claimed = update.executeUpdate();
+            }
+
+            List<FileJob> fileJobs = List.of();
+            if (claimed > 0) {
+                // L'UPDATE natif contourne le cache partagé : relire depuis la base
+                TypedQuery<FileJob> query = em.createQuery(
+                    "SELECT fj FROM FileJob fj WHERE fj.leaseToken = :token ORDER BY fj.queuedAt, fj.id",
+                    FileJob.class);
+                query.setParameter("token", token);
+                query.setHint(QueryHints.REFRESH, HintValues.TRUE);
+                fileJobs = query.getResultList();
+            }
+            transaction.commit();
+            if (claimed > 0) {
+                logger.debug("{} conversion(s) réservée(s) par {}", claimed, owner);
+            }
+            return fileJobs;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de la réservation des conversions en file", e);
+            throw new RuntimeException("Erreur lors de la réservation des conversions en file", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Verrouille les limit conversions prêtes de plus petit coût (après vieillissement).
+     * Les candidats sont choisis sans verrou, puis seuls ceux-ci sont verrouillés et revérifiés.
+     */
+    private List<?> lockShortestJobs(EntityManager em, int limit, ConversionType type) {
+        List<?> candidates = em.createNativeQuery(SJF_CANDIDATES_SQL)
+            .setParameter(1, limit * CANDIDATES_PER_SLOT)
+            .setParameter(2, agingPerSecond)
+            .setParameter(4, type.name())
+            .getResultList();
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        Query lock = em.createNativeQuery(String.format(SJF_LOCK_SQL, placeholders(3, candidates.size())))
+            .setParameter(1, limit)
+            .setParameter(2, agingPerSecond);
+        for (int i = 0; i < candidates.size(); i++) {
+            lock.setParameter(i + 3, ((Number) candidates.get(i)).longValue());
+        }
+        return lock.getResultList();
+    }
+
+    /**
+     * Verrouille jusqu'à limit conversions prêtes en alternant entre utilisateurs (voir FAIR_CANDIDATES_SQL).
+     * Les candidats sont choisis sans verrou ; parmi ceux qui ont pu être verrouillés, les premiers
+     * dans l'ordre équitable sont retenus. Les autres sont libérés à la fin de la transaction.
+     * Deux nœuds qui réservent au même instant peuvent dépasser le plafond d'un utilisateur
+     * d'un lot au plus : les conversions en cours sont comptées avant verrouillage.
+     */
+    private List<?> lockFairShare(EntityManager em, int limit, ConversionType type) {
+        Query select = em.createNativeQuery(String.format(FAIR_CANDIDATES_SQL,
+                                                          order == QueueOrder.SJF ? SJF_COST : FIFO_COST))
+            .setParameter(1, limit * CANDIDATES_PER_SLOT)
+            .setParameter(3, maxRunningPerUser)
+            .setParameter(4, type.name());
+        if (order == QueueOrder.SJF) {
+            select.setParameter(2, agingPerSecond);
+        }
+        List<?> candidates = select.getResultList();
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        Query lock = em.createNativeQuery(String.format(FAIR_LOCK_SQL, placeholders(1, candidates.size())));
+        for (int i = 0; i < candidates.size(); i++) {
+            lock.setParameter(i + 1, ((Number) candidates.get(i)).longValue());
+        }
+        Set<Long> locked = new HashSet<>();
+        for (Object id : lock.getResultList()) {
+            locked.add(((Number) id).longValue());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (Object candidate : candidates) {
+            long id = ((Number) candidate).longValue();
+            if (locked.contains(id) && ids.size() < limit) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Nombre de conversions en file par type, tous nœuds confondus.
+     */
+    public Map<ConversionType, Integer> countQueuedByType() {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        try {
+            List<Object[]> rows = em.createQuery(
+                "SELECT fj.conversionType, COUNT(fj) FROM FileJob fj WHERE fj.status = :queued " +
+                "GROUP BY fj.conversionType", Object[].class)
+                .setParameter("queued", ConversionStatus.QUEUED)
+                .getResultList();
+            Map<ConversionType, Integer> counts = new EnumMap<>(ConversionType.class);
+            for (Object[] row : rows) {
+                if (row[0] != null) {
+                    counts.put((ConversionType) row[0], ((Number) row[1]).intValue());
+                }
+            }
+            return counts;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Nombre de conversions en file, tous nœuds et tous types confondus.
+     */
+    public long countQueued() {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        try {
+            return em.createQuery("SELECT COUNT(fj) FROM FileJob fj WHERE fj.status = :queued", Long.class)
+                .setParameter("queued", ConversionStatus.QUEUED)
+                .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Nombre de conversions terminées (réussies ou en échec) depuis seconds secondes, tous nœuds
+     * confondus, selon l'horloge de la base.
+     */
+    public long countFinishedSince(long seconds) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        try {
+            Object count = em.createNativeQuery(FINISHED_SINCE_SQL)
+                .setParameter(1, seconds)
+                .getSingleResult();
+            return ((Number) count).longValue();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Enregistre l'issue d'une conversion (statut, sortie, erreur) et libère son bail.
+     * Sans effet si le nœud n'a plus le bail : conversion annulée, supprimée ou reprise ailleurs.
+     *
+     * @param fileJob Le FileJob portant le résultat
+     * @param owner L'identifiant du nœud qui a exécuté la conversion
+     * @return true si le résultat a été enregistré
+     */
+    public boolean complete(FileJob fileJob, String owner) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            int updated = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :status, fj.outputFilename = :outputFilename, " +
+                "fj.outputPath = :outputPath, fj.errorMessage = :errorMessage, fj.errorHistory = :errorHistory, " +
+                "fj.processedAt = CURRENT_TIMESTAMP, fj.nextAttemptAt = NULL, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL " +
+                "WHERE fj.id = :id AND fj.status = :processing AND fj.leaseOwner = :owner")
+                .setParameter("status", fileJob.getStatus())
+                .setParameter("outputFilename", fileJob.getOutputFilename())
+                .setParameter("outputPath", fileJob.getOutputPath())
+                .setParameter("errorMessage", fileJob.getErrorMessage())
+                .setParameter("errorHistory", fileJob.getErrorHistory())
+                .setParameter("id", fileJob.getId())
+                .setParameter("processing", ConversionStatus.PROCESSING)
+                .setParameter("owner", owner)
+                .executeUpdate();
+            transaction.commit();
+            return updated == 1;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de l'enregistrement du résultat du FileJob: {}", fileJob.getId(), e);
+            throw new RuntimeException("Erreur lors de l'enregistrement du résultat de la conversion", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Annule une conversion en file ou en cours. Le nœud qui l'exécute la voit sortir de
+     * PROCESSING au prochain renouvellement de bail et l'arrête.
+     *
+     * @param fileJobId L'ID du FileJob
+     * @return true si la conversion était en file ou en cours
+     */
+    public boolean cancel(Long fileJobId) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            int updated = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :cancelled, fj.errorMessage = :message, " +
+                "fj.processedAt = CURRENT_TIMESTAMP, fj.nextAttemptAt = NULL, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL " +
+                "WHERE fj.id = :id AND fj.status IN :cancellable")
+                .setParameter("cancelled", ConversionStatus.CANCELLED)
+                .setParameter("message", "Conversion annulée")
+                .setParameter("id", fileJobId)
+                .setParameter("cancellable", List.of(ConversionStatus.QUEUED, ConversionStatus.PROCESSING))
+                .executeUpdate();
+            transaction.commit();
+            return updated == 1;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de l'annulation du FileJob: {}", fileJobId, e);
+            throw new RuntimeException("Erreur lors de l'annulation de la conversion", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Renouvelle le bail des conversions en cours d'un nœud.
+     *
+     * @param owner L'identifiant du nœud
+     * @param fileJobIds Les IDs des FileJobs que le nœud exécute
+     * @param leaseSeconds La nouvelle durée du bail
+     * @return Les IDs dont le nœud n'a plus le bail (repris par un autre nœud ou sortis de PROCESSING)
+     */
+    public Set<Long> renewLeases(String owner, Collection<Long> fileJobIds, long leaseSeconds) {
+        if (fileJobIds.isEmpty()) {
+            return Set.of();
+        }
+        List<Long> ids = List.copyOf(fileJobIds);
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            Query update = em.createNativeQuery(String.format(RENEW_SQL, placeholders(3, ids.size())))
+                .setParameter(1, owner)
+                .setParameter(2, leaseSeconds);
+            for (int i = 0; i < ids.size(); i++) {
+                update.setParameter(i + 3, ids.get(i));
+            }
+            int renewed = update.executeUpdate();
+
+            Set<Long> lost = Set.of();
+            if (renewed < ids.size()) {
+                // Retrouver les conversions dont le bail n'est plus à ce nœud
+                List<Long> held = em.createQuery(
+                    "SELECT fj.id FROM FileJob fj WHERE fj.id IN :ids " +
+                    "AND fj.status = :processing AND fj.leaseOwner = :owner", Long.class)
+                    .setParameter("ids", ids)
+                    .setParameter("processing", ConversionStatus.PROCESSING)
+                    .setParameter("owner", owner)
+                    .getResultList();
+                lost = new HashSet<>(ids);
+                held.forEach(lost::remove);
+            }
+            transaction.commit();
+            return lost;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors du renouvellement des baux de {}", owner, e);
+            throw new RuntimeException("Erreur lors du renouvellement des baux", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Remet en file une conversion en échec transitoire, réservable après un délai.
+     * Sans effet si le nœud n'a plus le bail de la conversion.
+     *
+     * @param fileJobId L'ID du FileJob
+     * @param owner L'identifiant du nœud qui exécutait la conversion
+     * @param delaySeconds Le délai avant le nouvel essai
+     * @param errorMessage Le message de l'erreur
+     * @param historyEntry La ligne ajoutée à l'historique des erreurs
+     * @return true si le nouvel essai est programmé
+     */
+    public boolean scheduleRetry(Long fileJobId, String owner, long delaySeconds,
+                                 String errorMessage, String historyEntry) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            int updated = em.createNativeQuery(RETRY_SQL)
+                .setParameter(1, fileJobId)
+                .setParameter(2, owner)
+                .setParameter(3, delaySeconds)
+                .setParameter(4, errorMessage)
+                .setParameter(5, historyEntry)
+                .executeUpdate();
+            transaction.commit();
+            // L'UPDATE natif contourne le cache partagé
+            em.getEntityManagerFactory().getCache().evict(FileJob.class, fileJobId);
+            return updated == 1;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de la programmation d'un nouvel essai du FileJob: {}", fileJobId, e);
+            throw new RuntimeException("Erreur lors de la programmation d'un nouvel essai", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Reprend les conversions dont le bail a expiré, quel que soit le nœud qui les exécutait.
+     *
+     * @param maxAttempts Nombre de tentatives au-delà duquel la conversion passe en échec
+     * @return Les nombres de conversions remises en file et abandonnées
+     */
+    public Recovery recoverExpired(int maxAttempts) {
+        return recover(EXPIRED_CONDITION, null, maxAttempts);
+    }
+
+    /**
+     * Reprend toutes les conversions réservées par un nœud (au démarrage de ce nœud).
+     *
+     * @param owner L'identifiant du nœud
+     * @param maxAttempts Nombre de tentatives au-delà duquel la conversion passe en échec
+     * @return Les nombres de conversions remises en file et abandonnées
+     */
+    public Recovery recoverOwnedBy(String owner, int maxAttempts) {
+        return recover("fj.leaseOwner = :owner", owner, maxAttempts);
+    }
+
+    /**
+     * Remet en file des conversions réservées par un nœud et non exécutées (arrêt de l'application).
+     * La tentative n'est pas comptée : la conversion n'a pas échoué.
+     *
+     * @param owner L'identifiant du nœud
+     * @param fileJobIds Les IDs des FileJobs
+     * @return Le nombre de conversions remises en file
+     */
+    public int requeue(String owner, Collection<Long> fileJobIds) {
+        if (fileJobIds.isEmpty()) {
+            return 0;
+        }
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            // queued_at est conservé : les conversions reprises repartent en tête de file
+            int updated = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :queued, fj.attempts = fj.attempts - 1, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL " +
+                "WHERE fj.status = :processing AND fj.leaseOwner = :owner AND fj.id IN :ids")
+                .setParameter("queued", ConversionStatus.QUEUED)
+                .setParameter("processing", ConversionStatus.PROCESSING)
+                .setParameter("owner", owner)
+                .setParameter("ids", fileJobIds)
+                .executeUpdate();
+            transaction.commit();
+            return updated;
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de la remise en file des conversions de {}", owner, e);
+            throw new RuntimeException("Erreur lors de la remise en file des conversions", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    private Recovery recover(String condition, String owner, int maxAttempts) {
+        EntityManager em = DatabaseConfig.getEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+
+        try {
+            transaction.begin();
+            // Tentatives épuisées : échec définitif, consigné dans l'historique
+            String message = "Conversion abandonnée après " + maxAttempts + " tentative(s) interrompue(s)";
+            Query abandon = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :deadLetter, fj.errorMessage = :message, " +
+                "fj.errorHistory = CONCAT(COALESCE(fj.errorHistory, ''), :entry), " +
+                "fj.processedAt = CURRENT_TIMESTAMP, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL " +
+                "WHERE fj.status = :processing AND fj.attempts >= :maxAttempts AND " + condition)
+                .setParameter("deadLetter", ConversionStatus.DEAD_LETTER)
+                .setParameter("message", message)
+                .setParameter("entry", message + "\n")
+                .setParameter("processing", ConversionStatus.PROCESSING)
+                .setParameter("maxAttempts", maxAttempts);
+            // Les autres repartent en tête de file (queued_at conservé)
+            Query requeue = em.createQuery(
+                "UPDATE FileJob fj SET fj.status = :queued, " +
+                "fj.leaseOwner = NULL, fj.leaseToken = NULL, fj.leaseUntil = NULL " +
+                "WHERE fj.status = :processing AND " + condition)
+                .setParameter("queued", ConversionStatus.QUEUED)
+                .setParameter("processing", ConversionStatus.PROCESSING);
+            if (owner != null) {
+                abandon.setParameter("owner", owner);
+                requeue.setParameter("owner", owner);
+            }
+            int abandoned = abandon.executeUpdate();
+            int requeued = requeue.executeUpdate();
+            transaction.commit();
+            return new Recovery(requeued, abandoned);
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Erreur lors de la reprise des conversions interrompues", e);
+            throw new RuntimeException("Erreur lors de la reprise des conversions interrompues", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Paramètres positionnels ?first, ?first+1... d'une liste IN native.
+     */
+    private static String placeholders(int first, int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i > 0 ? ", " : "").append('?').append(first + i);
+        }
+        return placeholders.toString();
+    }
+}
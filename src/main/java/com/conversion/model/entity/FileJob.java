@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "file_jobs")
+// Ligne modifiée par tous les nœuds (file de conversion) : pas de cache partagé, toujours relue en base
+@Cacheable(false)
 public class FileJob {
     
     @Id
@@ -55,6 +57,34 @@ public class FileJob {
     @Column(name = "processed_at")
     private LocalDateTime processedAt;
     
+    // File de conversion persistante (voir ConversionQueueDAO)
+    @Column(name = "queued_at")
+    private LocalDateTime queuedAt;
+    
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+    
+    @Column(name = "lease_token", length = 36)
+    private String leaseToken;
+    
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "error_history", columnDefinition = "TEXT")
+    private String errorHistory;
+    
+    @Column(name = "submission_key", length = 64)
+    private String submissionKey;
+    
+    @Column(name = "estimated_cost")
+    private Long estimatedCost;
+    
     public FileJob() {
         this.status = ConversionStatus.UPLOADED;
         this.createdAt = LocalDateTime.now();
@@ -172,5 +202,76 @@ public class FileJob {
     public void setProcessedAt(LocalDateTime processedAt) {
         this.processedAt = processedAt;
     }
+    
+    public LocalDateTime getQueuedAt() {
+        return queuedAt;
+    }
+    
+    public void setQueuedAt(LocalDateTime queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+    
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+    
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+    
+    public String getLeaseToken() {
+        return leaseToken;
+    }
+    
+    public void setLeaseToken(String leaseToken) {
+        this.leaseToken = leaseToken;
+    }
+    
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public String getErrorHistory() {
+        return errorHistory;
+    }
+    
+    public void setErrorHistory(String errorHistory) {
+        this.errorHistory = errorHistory;
+    }
+    
+    public String getSubmissionKey() {
+        return submissionKey;
+    }
+    
+    public void setSubmissionKey(String submissionKey) {
+        this.submissionKey = submissionKey;
+    }
+    
+    public Long getEstimatedCost() {
+        return estimatedCost;
+    }
+    
+    public void setEstimatedCost(Long estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
 }
-
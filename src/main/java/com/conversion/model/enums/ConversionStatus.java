@@ -3,8 +3,11 @@ package com.Ash_Conversion.model.enums;
 public enum ConversionStatus {
     UPLOADED, 
     PENDING,
+    QUEUED,
     PROCESSING,  
     COMPLETED,  
-    FAILED      
+    FAILED,
+    DEAD_LETTER,
+    CANCELLED
 }
 
@@ -0,0 +1,105 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.MetricsRegistry;
+import com.Ash_Conversion.util.SystemLoadUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+
+/**
+ * Ajuste en marche le nombre de threads réservés de chaque cloison (AIMD).
+ * À chaque passage (conversion.adaptive.interval.seconds), il relève l'attente moyenne en file
+ * de chaque cloison, la charge CPU du processus et l'occupation du tas après GC :
+ * <ul>
+ *   <li>CPU ou tas au-delà de leur seuil : chaque cloison divise ses threads réservés
+ *       (conversion.adaptive.decrease.factor, au moins 1) ;</li>
+ *   <li>attente au-delà de conversion.adaptive.target.wait.millis, ou travail en file avec tous
+ *       les threads occupés : un thread de plus, dans la limite de la cloison et du total
+ *       conversion.adaptive.max.total.threads ;</li>
+ *   <li>cloison inoccupée au-dessus de sa taille configurée : un thread de moins.</li>
+ * </ul>
+ * Chaque décision est journalisée et comptée (conversion.adaptive.increase, .decrease).
+ * Exécuté par le thread du dispatcher, comme les réservations : pas de concurrence avec elles.
+ */
+class AdaptivePoolController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolController.class);
+
+    private final Collection<ConversionBulkhead> bulkheads;
+    private final long targetWaitMillis;
+    private final double cpuHigh;
+    private final double heapHigh;
+    private final double decreaseFactor;
+    private final int maxTotalThreads;
+    private volatile double lastCpu;
+    private volatile double lastHeap;
+
+    AdaptivePoolController(Collection<ConversionBulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+        this.targetWaitMillis = ConfigUtil.getLongProperty("conversion.adaptive.target.wait.millis", 2000);
+        this.cpuHigh = ConfigUtil.getDoubleProperty("conversion.adaptive.cpu.high", 0.85);
+        this.heapHigh = ConfigUtil.getDoubleProperty("conversion.adaptive.heap.high", 0.80);
+        this.decreaseFactor = Math.min(0.9, Math.max(0.1,
+            ConfigUtil.getDoubleProperty("conversion.adaptive.decrease.factor", 0.5)));
+        int maxTotal = ConfigUtil.getIntProperty("conversion.adaptive.max.total.threads", 0);
+        this.maxTotalThreads = maxTotal > 0 ? maxTotal : 2 * Runtime.getRuntime().availableProcessors();
+
+        MetricsRegistry.registerGauge("conversion.adaptive.cpu.percent", () -> Math.round(lastCpu * 100));
+        MetricsRegistry.registerGauge("conversion.adaptive.heap.percent", () -> Math.round(lastHeap * 100));
+    }
+
+    /**
+     * Un passage du contrôleur : relevés puis ajustement de chaque cloison.
+     */
+    void adjust() {
+        try {
+            double cpu = SystemLoadUtil.processCpuLoad();
+            double heap = SystemLoadUtil.heapOccupancy();
+            lastCpu = Math.max(cpu, 0);
+            lastHeap = heap;
+            String overload = cpu >= cpuHigh ? "CPU" : heap >= heapHigh ? "tas" : null;
+
+            int total = 0;
+            for (ConversionBulkhead bulkhead : bulkheads) {
+                total += bulkhead.getReservedThreads();
+            }
+
+            for (ConversionBulkhead bulkhead : bulkheads) {
+                long averageWait = bulkhead.sampleAverageWait();
+                int peak = bulkhead.samplePeakInFlight();
+                int current = bulkhead.getReservedThreads();
+                int target = current;
+                String reason = null;
+
+                if (overload != null) {
+                    target = Math.max(1, (int) (current * decreaseFactor));
+                    reason = overload;
+                } else if ((averageWait > targetWaitMillis || (bulkhead.getQueuedInDatabase() > 0 && peak >= current))
+                           && current < bulkhead.getMaxThreads() && total < maxTotalThreads) {
+                    target = current + 1;
+                    reason = "attente";
+                } else if (peak < current && bulkhead.getQueuedInDatabase() == 0
+                           && current > bulkhead.getConfiguredThreads()) {
+                    target = current - 1;
+                    reason = "inoccupée";
+                }
+
+                if (target != current) {
+                    bulkhead.resize(target);
+                    total += target - current;
+                    MetricsRegistry.increment(target > current ? "conversion.adaptive.increase" 
+                                                               : "conversion.adaptive.decrease");
+                    logger.info("Cloison {}: {} → {} threads réservés ({}; attente moyenne {}ms, " +
+                               "pic {}, en file {}, CPU {}%, tas {}%)",
+                               bulkhead.getType(), current, target, reason, Math.max(averageWait, 0), peak,
+                               bulkhead.getQueuedInDatabase(), Math.round(lastCpu * 100), Math.round(heap * 100));
+                }
+            }
+        } catch (RuntimeException e) {
+            // Ne pas arrêter les passages suivants
+            logger.error("Ajustement des cloisons impossible", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.dao.ConversionQueueDAO;
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contrôle d'admission des demandes de conversion.
+ * La file (conversions QUEUED dans la base, tous nœuds confondus) est bornée à
+ * conversion.admission.max.queued : au-delà, une demande est refusée tout de suite, avec un
+ * délai de nouvel essai estimé à partir du débit récent (conversions terminées sur la dernière
+ * minute) et de l'excédent de la file.
+ * Compteurs conversion.admission.accepted et .rejected, jauge conversion.admission.queue.depth.
+ */
+class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final long THROUGHPUT_WINDOW_SECONDS = 60;
+    // Le débit n'est relu qu'une fois par intervalle : un pic de refus ne multiplie pas les requêtes
+    private static final long THROUGHPUT_CACHE_MILLIS = 5000;
+
+    private final ConversionQueueDAO queueDAO;
+    private final long maxQueued;
+    private final long minRetryAfterSeconds;
+    private final long maxRetryAfterSeconds;
+    private volatile long lastDepth;
+    private volatile double throughputPerSecond;
+    private volatile long throughputReadAt;
+
+    AdmissionController(ConversionQueueDAO queueDAO) {
+        this.queueDAO = queueDAO;
+        this.maxQueued = ConfigUtil.getLongProperty("conversion.admission.max.queued", 1000);
+        this.minRetryAfterSeconds = Math.max(1, ConfigUtil.getLongProperty("conversion.admission.retry.after.min.seconds", 5));
+        this.maxRetryAfterSeconds = Math.max(minRetryAfterSeconds, 
+            ConfigUtil.getLongProperty("conversion.admission.retry.after.max.seconds", 600));
+
+        MetricsRegistry.registerGauge("conversion.admission.queue.depth", () -> lastDepth);
+    }
+
+    /**
+     * Décide si une nouvelle conversion peut entrer dans la file.
+     * La borne est vérifiée avant la mise en file, sans verrou : des demandes simultanées
+     * peuvent la dépasser de leur nombre.
+     *
+     * @return 0 si la demande est admise, sinon le délai conseillé avant un nouvel essai en secondes
+     */
+    long admit() {
+        if (maxQueued <= 0) {
+            MetricsRegistry.increment("conversion.admission.accepted");
+            return 0;
+        }
+        long depth = queueDAO.countQueued();
+        lastDepth = depth;
+        if (depth < maxQueued) {
+            MetricsRegistry.increment("conversion.admission.accepted");
+            return 0;
+        }
+
+        MetricsRegistry.increment("conversion.admission.rejected");
+        long retryAfter = retryAfterSeconds(depth - maxQueued + 1);
+        logger.warn("Demande de conversion refusée: {} conversions en file (maximum {}), nouvel essai dans {}s", 
+                   depth, maxQueued, retryAfter);
+        return retryAfter;
+    }
+
+    /**
+     * Temps pour que la file se vide de excess conversions au débit récent, borné.
+     */
+    private long retryAfterSeconds(long excess) {
+        double throughput = throughput();
+        if (throughput <= 0) {
+            return maxRetryAfterSeconds;
+        }
+        long seconds = (long) Math.ceil(excess / throughput);
+        return Math.max(minRetryAfterSeconds, Math.min(seconds, maxRetryAfterSeconds));
+    }
+
+    /**
+     * Conversions terminées par seconde sur la dernière minute, tous nœuds confondus.
+     */
+    private double throughput() {
+        long now = System.currentTimeMillis();
+        if (now - throughputReadAt >= THROUGHPUT_CACHE_MILLIS) {
+            throughputPerSecond = (double) queueDAO.countFinishedSince(THROUGHPUT_WINDOW_SECONDS) 
+                                  / THROUGHPUT_WINDOW_SECONDS;
+            throughputReadAt = now;
+        }
+        return throughputPerSecond;
+    }
+}
@@ -0,0 +1,190 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.model.enums.ConversionType;
+import com.Ash_Conversion.util.MetricsRegistry;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cloison d'un type de conversion : un pool de threads propre, avec un nombre de threads réservés.
+ * Une conversion lourde d'un type (gros classeurs Excel → PDF) ne prend pas les threads des autres.
+ * Une cloison peut emprunter les threads réservés d'une autre cloison sans travail en file,
+ * jusqu'à son maximum : le prêt est rendu à la fin des conversions empruntées.
+ * Le nombre de threads réservés peut être ajusté en marche (voir AdaptivePoolController).
+ * Avec conversion.virtual.threads, chaque conversion a son thread virtuel : la réserve limite alors
+ * le nombre de conversions simultanées, et le CPU est borné par les permis de ConversionService.
+ * Les conversions réservées en base par le dispatcher sont comptées dès leur réservation ;
+ * la file du pool ne reçoit que ces conversions et est bornée à son maximum.
+ */
+class ConversionBulkhead {
+
+    private final ConversionType type;
+    private final int configuredThreads;
+    // Ajusté par AdaptivePoolController entre 1 et maxThreads
+    private volatile int reservedThreads;
+    private final int maxThreads;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queuedInDatabase = new AtomicInteger();
+    // Relevés depuis le dernier passage du contrôleur
+    private final LongAdder waitMillis = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * @param type Le type de conversion de la cloison
+     * @param reservedThreads Les threads réservés
+     * @param maxThreads Le maximum avec les threads empruntés
+     * @param virtualThreads true pour un thread virtuel par conversion au lieu d'un pool de threads
+     */
+    ConversionBulkhead(ConversionType type, int reservedThreads, int maxThreads, boolean virtualThreads) {
+        this.type = type;
+        this.configuredThreads = reservedThreads;
+        this.reservedThreads = reservedThreads;
+        this.maxThreads = Math.max(reservedThreads, maxThreads);
+        String prefix = "conversion-" + type.name().toLowerCase().replace('_', '-') + "-";
+        if (virtualThreads) {
+            // Le nombre de conversions reste limité par la réserve : seul le thread change
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.maxThreads),
+                // Threads non démons : l'arrêt passe par ConversionService.shutdown()
+                runnable -> new Thread(runnable, prefix + count.incrementAndGet()));
+            // Les threads prêtés puis rendus ne restent pas en vie
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+
+        String metric = "conversion.bulkhead." + type;
+        MetricsRegistry.registerGauge(metric + ".active", inFlight::get);
+        MetricsRegistry.registerGauge(metric + ".reserved", () -> this.reservedThreads);
+        MetricsRegistry.registerGauge(metric + ".borrowed", this::borrowed);
+        MetricsRegistry.registerGauge(metric + ".utilisation.percent",
+            () -> this.reservedThreads > 0 ? inFlight.get() * 100 / this.reservedThreads : 0);
+        MetricsRegistry.registerGauge(metric + ".queue.depth", queuedInDatabase::get);
+    }
+
+    ConversionType getType() {
+        return type;
+    }
+
+    int getReservedThreads() {
+        return reservedThreads;
+    }
+
+    /**
+     * Threads réservés au démarrage (conversion.bulkhead.threads).
+     */
+    int getConfiguredThreads() {
+        return configuredThreads;
+    }
+
+    int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Change le nombre de threads réservés. Le pool est dimensionné au maximum de la cloison :
+     * seule la part que le dispatcher peut réserver change. Une réduction laisse les conversions
+     * en cours se terminer.
+     */
+    void resize(int threads) {
+        reservedThreads = Math.max(1, Math.min(threads, maxThreads));
+    }
+
+    /**
+     * Enregistre l'attente en file d'une conversion réservée pour cette cloison.
+     */
+    void recordWait(long millis) {
+        waitMillis.add(millis);
+        waitCount.increment();
+    }
+
+    /**
+     * Attente moyenne en file depuis le relevé précédent, -1 si aucune conversion n'a été réservée.
+     */
+    long sampleAverageWait() {
+        long count = waitCount.sumThenReset();
+        long total = waitMillis.sumThenReset();
+        return count > 0 ? total / count : -1;
+    }
+
+    /**
+     * Plus grand nombre de conversions simultanées depuis le relevé précédent.
+     */
+    int samplePeakInFlight() {
+        return peakInFlight.getAndSet(inFlight.get());
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Threads réservés encore libres.
+     */
+    int freeReserved() {
+        return Math.max(0, reservedThreads - inFlight.get());
+    }
+
+    /**
+     * Threads que la cloison peut encore emprunter au-delà de sa réserve.
+     */
+    int borrowable() {
+        return Math.max(0, maxThreads - Math.max(reservedThreads, inFlight.get()));
+    }
+
+    int borrowed() {
+        return Math.max(0, inFlight.get() - reservedThreads);
+    }
+
+    /**
+     * Exécute une conversion réservée. Elle doit appeler {@link #release()} en se terminant.
+     *
+     * @throws RejectedExecutionException si le pool est arrêté
+     */
+    void execute(Runnable task) {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Nombre de conversions de ce type en file dans la base (tous nœuds), relevé périodiquement.
+     */
+    int getQueuedInDatabase() {
+        return queuedInDatabase.get();
+    }
+
+    void setQueuedInDatabase(int queued) {
+        queuedInDatabase.set(queued);
+    }
+
+    /**
+     * Retire de la file du pool les conversions qui n'ont pas démarré.
+     */
+    void drainQueue(List<Runnable> into) {
+        // Un thread virtuel par conversion : rien n'attend dans une file
+        if (executor instanceof ThreadPoolExecutor pool) {
+            pool.getQueue().drainTo(into);
+        }
+    }
+}
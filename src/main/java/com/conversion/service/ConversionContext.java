@@ -0,0 +1,125 @@
+package com.Ash_Conversion.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jeton d'annulation d'une conversion.
+ * Les convertisseurs y enregistrent les ressources ouvertes (documents PDFBox, paquets POI,
+ * flux de sortie iText) et appellent {@link #checkCancelled()} à chaque page ou ligne traitée.
+ * L'annulation interrompt le thread de conversion et ferme les ressources enregistrées,
+ * ce qui débloque aussi un thread pris dans une lecture ou une écriture.
+ */
+public class ConversionContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionContext.class);
+
+    private final Set<Closeable> resources = ConcurrentHashMap.newKeySet();
+    private volatile String cancelReason;
+    private Thread worker;
+    private boolean finished;
+
+    /**
+     * Contexte sans délai, pour les appels hors du moteur de conversion.
+     */
+    public static ConversionContext none() {
+        return new ConversionContext();
+    }
+
+    /**
+     * Enregistre une ressource à fermer en cas d'annulation.
+     * Si la conversion est déjà annulée, la ressource est fermée immédiatement.
+     */
+    public <T extends Closeable> T register(T resource) throws IOException {
+        resources.add(resource);
+        if (isCancelled()) {
+            resources.remove(resource);
+            closeQuietly(resource);
+            throw cancelledException();
+        }
+        return resource;
+    }
+
+    /**
+     * Retire une ressource fermée normalement par le convertisseur.
+     */
+    public void unregister(Closeable resource) {
+        resources.remove(resource);
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    /**
+     * Lève une exception si la conversion a été annulée ou si le thread a été interrompu.
+     *
+     * @throws InterruptedIOException si le traitement doit s'arrêter
+     */
+    public void checkCancelled() throws InterruptedIOException {
+        if (isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw cancelledException();
+        }
+    }
+
+    /**
+     * Associe le contexte au thread qui exécute la conversion.
+     */
+    synchronized void bindWorker(Thread thread) {
+        this.worker = thread;
+    }
+
+    /**
+     * Annule la conversion : interrompt le thread de conversion puis ferme les ressources.
+     * Sans effet si la conversion est déjà terminée.
+     *
+     * @return true si la conversion était encore en cours
+     */
+    public synchronized boolean cancel(String reason) {
+        if (finished || isCancelled()) {
+            return false;
+        }
+        cancelReason = reason;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        for (Closeable resource : resources) {
+            closeQuietly(resource);
+        }
+        resources.clear();
+        return true;
+    }
+
+    /**
+     * Marque la conversion terminée : une annulation tardive n'interrompra pas le thread,
+     * rendu au pool pour une autre conversion.
+     */
+    synchronized void finish() {
+        finished = true;
+        worker = null;
+        resources.clear();
+    }
+
+    private InterruptedIOException cancelledException() {
+        String reason = cancelReason;
+        return new InterruptedIOException(reason != null ? "Conversion annulée: " + reason : "Conversion interrompue");
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Fermeture d'une ressource de conversion annulée: {}", e.getMessage());
+        }
+    }
+}
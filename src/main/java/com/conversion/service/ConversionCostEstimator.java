@@ -0,0 +1,109 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.model.entity.FileJob;
+import com.Ash_Conversion.model.enums.ConversionType;
+import com.Ash_Conversion.util.ConfigUtil;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estimation du coût d'une conversion, utilisée pour ordonner la file (plus court d'abord).
+ * Le coût est exprimé en Ko équivalents : la taille du fichier, ou, quand le nombre de pages
+ * (PDF) ou de cellules (.xlsx) se lit sans parcourir le document, ce nombre converti en Ko
+ * (conversion.schedule.cost.page.kb, conversion.schedule.cost.kcells.kb).
+ * Le résultat est pondéré par type de conversion (conversion.schedule.type.weights, Type:poids).
+ */
+public class ConversionCostEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionCostEstimator.class);
+
+    private static final String DEFAULT_WEIGHTS = "PDF_TO_WORD:1,PDF_TO_EXCEL:1.5,WORD_TO_PDF:1,EXCEL_TO_PDF:2";
+
+    private final Map<ConversionType, Double> weights = new EnumMap<>(ConversionType.class);
+    private final double pageKb;
+    private final double kcellsKb;
+    private final ExcelEventReader excelReader = new ExcelEventReader();
+
+    public ConversionCostEstimator() {
+        this.pageKb = ConfigUtil.getDoubleProperty("conversion.schedule.cost.page.kb", 20);
+        this.kcellsKb = ConfigUtil.getDoubleProperty("conversion.schedule.cost.kcells.kb", 10);
+
+        for (String entry : ConfigUtil.getProperty("conversion.schedule.type.weights", DEFAULT_WEIGHTS).split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                weights.put(ConversionType.valueOf(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Entrée ignorée dans conversion.schedule.type.weights: {}", entry);
+            }
+        }
+    }
+
+    /**
+     * Coût estimé de la conversion d'un FileJob, en Ko équivalents (au moins 1).
+     *
+     * @param fileJob Le FileJob, avec son type de conversion
+     * @return Le coût estimé
+     */
+    public long estimate(FileJob fileJob) {
+        long sizeKb = fileJob.getFileSize() != null ? fileJob.getFileSize() / 1024 : 0;
+        double cost = sizeKb;
+
+        ConversionType type = fileJob.getConversionType();
+        if (type != null && fileJob.getFilePath() != null) {
+            File source = new File(fileJob.getFilePath());
+            try {
+                double counted = countedKb(type, source);
+                if (counted > 0) {
+                    cost = counted;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Fichier illisible ici : la conversion le signalera, la taille suffit pour l'ordre
+                logger.debug("Coût de FileJob {} estimé par la taille: {}", fileJob.getId(), e.getMessage());
+            }
+        }
+
+        double weight = type != null ? weights.getOrDefault(type, 1.0) : 1.0;
+        return Math.max(1, Math.round(cost * weight));
+    }
+
+    /**
+     * Coût tiré du nombre de pages ou de cellules, 0 s'il n'est pas connu pour ce type.
+     */
+    private double countedKb(ConversionType type, File source) throws IOException {
+        long units = countUnits(type, source);
+        return switch (type) {
+            case PDF_TO_WORD, PDF_TO_EXCEL -> units * pageKb;
+            case EXCEL_TO_PDF -> units / 1000.0 * kcellsKb;
+            case WORD_TO_PDF -> 0;
+        };
+    }
+
+    /**
+     * Taille du document lue sans le parcourir : pages d'un PDF, cellules déclarées d'un .xlsx,
+     * 0 si elle n'est pas connue pour ce type. Partagé avec MemoryBudget.
+     */
+    long countUnits(ConversionType type, File source) throws IOException {
+        return switch (type) {
+            case PDF_TO_WORD, PDF_TO_EXCEL -> {
+                // Seules la table des références et l'arbre des pages sont lus
+                try (PDDocument document = Loader.loadPDF(source)) {
+                    yield document.getNumberOfPages();
+                }
+            }
+            case EXCEL_TO_PDF -> source.getName().toLowerCase().endsWith(".xlsx")
+                ? excelReader.countDeclaredCells(source)
+                : 0;
+            case WORD_TO_PDF -> 0;
+        };
+    }
+}
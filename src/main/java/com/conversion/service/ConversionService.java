@@ -1,29 +1,109 @@
 package com.Ash_Conversion.service;
 
+import com.Ash_Conversion.dao.ConversionQueueDAO;
 import com.Ash_Conversion.util.ConfigUtil;
 import com.Ash_Conversion.exception.ConversionException;
 import com.Ash_Conversion.model.entity.FileJob;
 import com.Ash_Conversion.model.enums.ConversionStatus;
 import com.Ash_Conversion.model.enums.ConversionType;
 import com.Ash_Conversion.util.FileUtil;
+import com.Ash_Conversion.util.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.concurrent.ExecutorService;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Service pour la gestion des conversions de fichiers.
- * Utilise ExecutorService pour les conversions asynchrones.
+ * Les conversions demandées sont mises en file dans la base (statut QUEUED, voir ConversionQueueDAO) :
+ * un dispatcher réserve par lots autant de conversions que de threads libres et les exécute dans
+ * la cloison de leur type (ConversionBulkhead : un pool par type, threads prêtés entre cloisons
+ * quand l'une est inoccupée ; threads réservés ajustés en marche par AdaptivePoolController).
+ * Au démarrage, les conversions restées réservées par ce nœud sont remises en file.
+ * Le nœud renouvelle le bail de ses conversions toutes les conversion.queue.heartbeat.seconds ;
+ * un passage périodique reprend les conversions dont le bail a expiré, sur n'importe quel nœud.
+ * Une conversion peut être annulée (cancelConversion) en file ou en cours, sur ce nœud ou un autre.
+ * Les conversions en file sont réservées dans l'ordre d'arrivée ou, avec conversion.schedule.policy=sjf,
+ * la plus courte d'abord (coût estimé par ConversionCostEstimator, diminué avec l'attente).
+ * Avec conversion.fairness.enabled, les utilisateurs sont servis à tour de rôle et chacun a au plus
+ * conversion.fairness.user.max.running conversions en cours : un envoi massif n'occupe pas tous les threads.
+ * Les demandes en double (double clic, client qui réessaie) ne lancent pas une seconde conversion :
+ * elles reçoivent le statut de la conversion existante (voir submit). Une demande est refusée
+ * tout de suite quand la file est pleine (AdmissionController).
+ * Avec plusieurs nœuds sur la même base, chaque nœud dont conversion.worker.enabled est vrai
+ * exécute les conversions en file, quel que soit le nœud qui les a acceptées.
+ * Une seule instance par application, créée et arrêtée par ConversionEngineInitializer.
+ * Chaque conversion s'exécute sous le délai conversion.timeout.seconds : à son expiration,
+ * le thread est interrompu, les ressources du convertisseur fermées et le FileJob passé en FAILED.
+ * Le délai ne court qu'une fois les ressources obtenues (mémoire, permis CPU) ; leur attente a sa propre limite,
+ * conversion.wait.timeout.seconds, au-delà de laquelle la conversion est remise en file.
+ * Une conversion ne démarre que si son besoin de tas estimé tient dans le budget mémoire
+ * (MemoryBudget) : les grosses conversions arrivées ensemble attendent au lieu de saturer le tas.
  */
 public class ConversionService {
     
     private static final Logger logger = LoggerFactory.getLogger(ConversionService.class);
+    private static final DateTimeFormatter HISTORY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
-    private final ExecutorService executorService;
+    // Une cloison (pool de threads) par type de conversion
+    private final Map<ConversionType, ConversionBulkhead> bulkheads = new EnumMap<>(ConversionType.class);
+    private final boolean virtualThreads;
+    // Permis CPU des appels aux convertisseurs (threads virtuels), null avec des pools de threads
+    private final Semaphore cpuPermits;
+    // Threads virtuels : conversions réservées à la fois par ce nœud, limite distincte des permis CPU
+    private final int maxInflight;
+    // Attente des ressources (budget mémoire, permis CPU) avant le démarrage, hors délai de conversion
+    private final long waitTimeoutSeconds;
+    // Ajuste les threads réservés des cloisons, null si conversion.adaptive.enabled est faux
+    private final AdaptivePoolController adaptiveController;
+    private final long adaptiveIntervalSeconds;
+    // Cloison servie en premier lors du prêt de threads, tournante (thread du dispatcher uniquement)
+    private int lendingCursor;
+    // Conversions réservées par ce nœud et pas encore terminées (en file du pool ou en cours)
+    private final Map<Long, ConversionTask> leasedJobs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService dispatcher;
+    private final ConversionQueueDAO queueDAO;
+    private final RetryPolicy retryPolicy;
+    private final ConversionCostEstimator costEstimator;
+    private final AdmissionController admissionController;
+    private final MemoryBudget memoryBudget;
+    private final String nodeId;
+    private final boolean workerEnabled;
+    private final long leaseSeconds;
+    private final long heartbeatSeconds;
+    private final long reaperSeconds;
+    private final int maxAttempts;
+    private final long pollMillis;
+    private final long drainSeconds;
+    private final long timeoutSeconds;
+    // Déclenche l'annulation des conversions qui dépassent leur délai
+    private final ScheduledExecutorService watchdog;
+    private volatile boolean accepting = true;
+    // FileJobs dont la conversion est en cours d'exécution
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    // Demandes de mise en file en cours de traitement sur ce nœud, une par FileJob
+    private final Map<Long, CompletableFuture<SubmissionResult>> submissions = new ConcurrentHashMap<>();
     private final FileJobService fileJobService;
     private final StorageService storageService;
     private final PdfToWordService pdfToWordService;
@@ -32,8 +112,49 @@ public class ConversionService {
     private final ExcelToPdfService excelToPdfService;
     
     public ConversionService() {
-        int poolSize = ConfigUtil.getIntProperty("conversion.thread.pool.size", 5);
-        this.executorService = Executors.newFixedThreadPool(poolSize);
+        this.virtualThreads = ConfigUtil.getBooleanProperty("conversion.virtual.threads", true);
+        int permits = ConfigUtil.getIntProperty("conversion.cpu.permits", 0);
+        this.cpuPermits = virtualThreads
+            ? new Semaphore(permits > 0 ? permits : Runtime.getRuntime().availableProcessors(), true) : null;
+        this.maxInflight = Math.max(1, ConfigUtil.getIntProperty("conversion.virtual.max.inflight", 100));
+        this.waitTimeoutSeconds = Math.max(1, ConfigUtil.getLongProperty("conversion.wait.timeout.seconds", 1800));
+        createBulkheads();
+        // Avec les threads virtuels, le CPU est borné par les permis : pas de threads à ajuster
+        this.adaptiveController = !virtualThreads && ConfigUtil.getBooleanProperty("conversion.adaptive.enabled", true)
+            ? new AdaptivePoolController(bulkheads.values()) : null;
+        this.adaptiveIntervalSeconds = Math.max(1, ConfigUtil.getLongProperty("conversion.adaptive.interval.seconds", 15));
+        this.leaseSeconds = Math.max(2, ConfigUtil.getLongProperty("conversion.queue.lease.seconds", 90));
+        // Plusieurs renouvellements par bail, pour survivre à un renouvellement manqué
+        this.heartbeatSeconds = Math.max(1, Math.min(ConfigUtil.getLongProperty("conversion.queue.heartbeat.seconds", 30), 
+                                                     leaseSeconds / 2));
+        this.reaperSeconds = Math.max(1, ConfigUtil.getLongProperty("conversion.queue.reaper.seconds", 60));
+        this.maxAttempts = Math.max(1, ConfigUtil.getIntProperty("conversion.queue.max.attempts", 3));
+        this.pollMillis = Math.max(100, ConfigUtil.getLongProperty("conversion.queue.poll.millis", 1000));
+        this.nodeId = resolveNodeId();
+        this.workerEnabled = ConfigUtil.getBooleanProperty("conversion.worker.enabled", true);
+        this.drainSeconds = ConfigUtil.getLongProperty("conversion.shutdown.drain.seconds", 30);
+        this.timeoutSeconds = ConfigUtil.getLongProperty("conversion.timeout.seconds", 300);
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "conversion-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Les délais des conversions terminées sont retirés tout de suite de la file du timer
+        timer.setRemoveOnCancelPolicy(true);
+        this.watchdog = timer;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversion-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queueDAO = new ConversionQueueDAO(resolveQueueOrder(),
+                ConfigUtil.getDoubleProperty("conversion.schedule.aging.kb.per.second", 100),
+                ConfigUtil.getBooleanProperty("conversion.fairness.enabled", true),
+                ConfigUtil.getIntProperty("conversion.fairness.user.max.running", 3));
+        this.costEstimator = new ConversionCostEstimator();
+        this.admissionController = new AdmissionController(queueDAO);
+        this.memoryBudget = new MemoryBudget(costEstimator);
+        this.retryPolicy = new RetryPolicy();
         this.fileJobService = new FileJobService();
         this.storageService = new StorageService();
         this.pdfToWordService = new PdfToWordService();
@@ -41,49 +162,570 @@ public class ConversionService {
         this.pdfToExcelService = new PdfToExcelService();
         this.excelToPdfService = new ExcelToPdfService();
         
-        logger.info("ConversionService initialisé avec un pool de {} threads", poolSize);
+        MetricsRegistry.registerGauge("conversion.queue.inflight", leasedJobs::size);
+        MetricsRegistry.registerGauge("conversion.capacity.threads", this::capacity);
+        if (cpuPermits != null) {
+            MetricsRegistry.registerGauge("conversion.cpu.permits.available", cpuPermits::availablePermits);
+            MetricsRegistry.registerGauge("conversion.cpu.permits.waiting", cpuPermits::getQueueLength);
+        }
+        
+        logger.info("ConversionService initialisé avec {} threads réservés (nœud: {}, worker: {}, délai de conversion: {}s)", 
+                   capacity(), nodeId, workerEnabled, timeoutSeconds);
+    }
+    
+    /**
+     * Crée une cloison par type de conversion : conversion.bulkhead.threads donne les threads
+     * réservés (Type:n, 1 par défaut), conversion.bulkhead.max.threads le maximum avec les
+     * threads empruntés (par défaut, le total des threads réservés).
+     * Avec les threads virtuels, ces nombres deviennent des parts de conversion.virtual.max.inflight :
+     * la réserve de chaque cloison est agrandie dans la même proportion, le maximum est max.inflight.
+     * Les conversions réservées attendent alors leur permis CPU dans un thread virtuel suspendu.
+     */
+    private void createBulkheads() {
+        Map<ConversionType, Integer> reserved = parseTypeCounts("conversion.bulkhead.threads",
+            "PDF_TO_WORD:2,PDF_TO_EXCEL:1,WORD_TO_PDF:1,EXCEL_TO_PDF:1");
+        Map<ConversionType, Integer> max = parseTypeCounts("conversion.bulkhead.max.threads", "");
+        
+        int total = 0;
+        for (ConversionType type : ConversionType.values()) {
+            total += Math.max(1, reserved.getOrDefault(type, 1));
+        }
+        for (ConversionType type : ConversionType.values()) {
+            int threads = Math.max(1, reserved.getOrDefault(type, 1));
+            int maxThreads = max.getOrDefault(type, total);
+            if (virtualThreads) {
+                threads = Math.max(threads, maxInflight * threads / total);
+                maxThreads = Math.max(threads, maxInflight);
+            }
+            bulkheads.put(type, new ConversionBulkhead(type, threads, maxThreads, virtualThreads));
+        }
+    }
+    
+    /**
+     * Nombre de conversions que ce nœud exécute à la fois : total des threads réservés des cloisons
+     * (avec les threads virtuels, environ conversion.virtual.max.inflight).
+     */
+    private int capacity() {
+        int capacity = 0;
+        for (ConversionBulkhead bulkhead : bulkheads.values()) {
+            capacity += bulkhead.getReservedThreads();
+        }
+        return capacity;
+    }
+    
+    private static Map<ConversionType, Integer> parseTypeCounts(String key, String defaultValue) {
+        Map<ConversionType, Integer> counts = new EnumMap<>(ConversionType.class);
+        for (String entry : ConfigUtil.getProperty(key, defaultValue).split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                counts.put(ConversionType.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Entrée ignorée dans {}: {}", key, entry);
+            }
+        }
+        return counts;
     }
     
     /**
-     * Démarre une conversion de manière asynchrone.
+     * Reprend les conversions laissées en cours par ce nœud (arrêt brutal, redéploiement)
+     * puis démarre le dispatcher. Sans effet si ce nœud ne fait qu'accepter les conversions.
+     */
+    public void start() {
+        if (!workerEnabled) {
+            logger.info("Nœud {} sans worker: les conversions acceptées seront exécutées par les autres nœuds", nodeId);
+            return;
+        }
+        try {
+            recordRecovery(queueDAO.recoverOwnedBy(nodeId, maxAttempts), "redémarrage du nœud");
+        } catch (RuntimeException e) {
+            logger.error("Reprise des conversions interrompues impossible", e);
+        }
+        dispatcher.scheduleWithFixedDelay(this::dispatch, 0, pollMillis, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        dispatcher.scheduleWithFixedDelay(this::reap, reaperSeconds, reaperSeconds, TimeUnit.SECONDS);
+        if (adaptiveController != null) {
+            dispatcher.scheduleWithFixedDelay(adaptiveController::adjust, adaptiveIntervalSeconds, 
+                                              adaptiveIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * Met une conversion en file. Elle sera exécutée par ce nœud ou un autre dès qu'un thread est libre.
      * 
-     * @param fileJob Le FileJob à convertir
+     * @param fileJob Le FileJob à convertir (son type de conversion est enregistré avec la mise en file)
+     * @return true si la conversion a été mise en file, false si elle y est déjà ou en cours
      */
-    public void startConversion(FileJob fileJob) {
+    public boolean startConversion(FileJob fileJob) {
         if (fileJob == null) {
             logger.error("Tentative de conversion d'un FileJob null");
-            return;
+            return false;
         }
         
-        // Vérifier que le fichier peut être converti
-        if (fileJob.getStatus() != ConversionStatus.UPLOADED && 
-            fileJob.getStatus() != ConversionStatus.COMPLETED) {
-            logger.warn("FileJob {} ne peut pas être converti (statut: {})", 
-                       fileJob.getId(), fileJob.getStatus());
+        if (!accepting) {
+            logger.warn("FileJob {} refusé: service de conversion en cours d'arrêt", fileJob.getId());
+            return false;
+        }
+        return submit(fileJob, null).isAccepted();
+    }
+    
+    /**
+     * Demande la conversion d'un FileJob, une seule fois même si la demande arrive plusieurs fois.
+     * Sur ce nœud, les demandes simultanées pour un même FileJob attendent la première et
+     * reçoivent son résultat. Entre nœuds, la mise en file conditionnelle sur le statut garantit
+     * qu'une seule demande passe : les autres reçoivent le statut actuel du FileJob.
+     * Une demande qui rejoue la clé d'idempotence de la mise en file précédente n'a pas d'effet,
+     * même si la conversion est déjà terminée.
+     * 
+     * @param fileJob Le FileJob à convertir (son type de conversion est enregistré avec la mise en file)
+     * @param idempotencyKey La clé d'idempotence envoyée par le client, ou null
+     * @return ACCEPTED si la conversion a été mise en file, DUPLICATE avec le statut actuel si elle
+     *         l'était déjà, REJECTED avec un délai de nouvel essai si la file est pleine
+     */
+    public SubmissionResult submit(FileJob fileJob, String idempotencyKey) {
+        Long fileJobId = fileJob.getId();
+        CompletableFuture<SubmissionResult> flight = new CompletableFuture<>();
+        CompletableFuture<SubmissionResult> leader = submissions.putIfAbsent(fileJobId, flight);
+        if (leader != null) {
+            MetricsRegistry.increment("conversion.submit.duplicate");
+            try {
+                SubmissionResult first = leader.join();
+                // Refusée faute de place : la même réponse vaut pour ses doublons
+                return first.outcome() == SubmissionResult.Outcome.REJECTED
+                    ? first : SubmissionResult.duplicate(first.status());
+            } catch (CompletionException e) {
+                // La première demande a échoué : statut relu dans la base
+                return SubmissionResult.duplicate(getConversionStatus(fileJobId));
+            }
+        }
+        
+        try {
+            SubmissionResult result = enqueue(fileJob, idempotencyKey);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            submissions.remove(fileJobId, flight);
+        }
+    }
+    
+    private SubmissionResult enqueue(FileJob fileJob, String idempotencyKey) {
+        // File pleine : refus immédiat, sauf pour une demande en double qui n'ajoute rien à la file
+        long retryAfter = admissionController.admit();
+        if (retryAfter > 0) {
+            FileJob current = fileJobService.findById(fileJob.getId());
+            ConversionStatus status = current != null ? current.getStatus() : null;
+            if (status == ConversionStatus.QUEUED || status == ConversionStatus.PROCESSING ||
+                (idempotencyKey != null && current != null && idempotencyKey.equals(current.getSubmissionKey()))) {
+                return SubmissionResult.duplicate(status);
+            }
+            return SubmissionResult.rejected(status, retryAfter);
+        }
+        
+        // Mise en file conditionnelle sur le statut, en une seule requête
+        // Le coût n'est estimé (lecture du nombre de pages ou de cellules) que s'il sert à l'ordre
+        Long estimatedCost = queueDAO.getOrder() == ConversionQueueDAO.QueueOrder.SJF
+            ? costEstimator.estimate(fileJob) : null;
+        if (!queueDAO.enqueue(fileJob.getId(), fileJob.getConversionType(), idempotencyKey, estimatedCost)) {
+            ConversionStatus current = getConversionStatus(fileJob.getId());
+            logger.info("Demande en double pour FileJob {} (statut: {})", fileJob.getId(), current);
+            MetricsRegistry.increment("conversion.submit.duplicate");
+            return SubmissionResult.duplicate(current);
+        }
+        fileJob.setStatus(ConversionStatus.QUEUED);
+        fileJob.setSubmissionKey(idempotencyKey);
+        fileJob.setEstimatedCost(estimatedCost);
+        MetricsRegistry.increment("conversion.queue.enqueued");
+        
+        logger.info("Conversion mise en file pour FileJob: {}", fileJob.getId());
+        wakeDispatcher();
+        return SubmissionResult.accepted();
+    }
+    
+    /**
+     * Réserve des conversions en file pour les threads libres de chaque cloison et les y soumet.
+     * Chaque cloison remplit d'abord ses threads réservés ; les threads réservés restés libres
+     * (cloison sans travail en file) sont ensuite prêtés, à tour de rôle, aux cloisons pleines.
+     * Exécuté uniquement par le thread du dispatcher.
+     */
+    private void dispatch() {
+        try {
+            int free = capacity() - leasedJobs.size();
+            if (!accepting || free <= 0) {
+                return;
+            }
+            List<ConversionBulkhead> full = new ArrayList<>();
+            for (ConversionBulkhead bulkhead : bulkheads.values()) {
+                int wanted = Math.min(bulkhead.freeReserved(), free);
+                int claimed = wanted > 0 ? claimFor(bulkhead, wanted) : 0;
+                free -= claimed;
+                // Réserve pleine ou travail en file au-delà : candidate à l'emprunt
+                if (claimed == wanted && bulkhead.borrowable() > 0) {
+                    full.add(bulkhead);
+                }
+            }
+            
+            if (free > 0 && !full.isEmpty()) {
+                int start = lendingCursor++ % full.size();
+                for (int i = 0; i < full.size() && free > 0; i++) {
+                    ConversionBulkhead bulkhead = full.get((start + i) % full.size());
+                    int borrowed = claimFor(bulkhead, Math.min(bulkhead.borrowable(), free));
+                    free -= borrowed;
+                    MetricsRegistry.add("conversion.bulkhead.lent", borrowed);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Ne pas arrêter le dispatcher : nouvel essai au prochain passage
+            logger.error("Erreur lors de la réservation des conversions en file", e);
+        }
+    }
+    
+    /**
+     * Réserve jusqu'à limit conversions du type de la cloison et les soumet à son pool.
+     * 
+     * @return Le nombre de conversions réservées
+     */
+    private int claimFor(ConversionBulkhead bulkhead, int limit) {
+        List<FileJob> claimed = queueDAO.claim(nodeId, limit, leaseSeconds, bulkhead.getType());
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        MetricsRegistry.add("conversion.queue.claimed", claimed.size());
+        List<Long> rejected = new ArrayList<>();
+        for (FileJob fileJob : claimed) {
+            bulkhead.recordWait(recordQueueWait(fileJob));
+            ConversionTask task = new ConversionTask(fileJob, bulkhead);
+            leasedJobs.put(fileJob.getId(), task);
+            try {
+                bulkhead.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Arrêt commencé pendant la réservation
+                leasedJobs.remove(fileJob.getId());
+                rejected.add(fileJob.getId());
+            }
+        }
+        if (!rejected.isEmpty()) {
+            queueDAO.requeue(nodeId, rejected);
+        }
+        return claimed.size();
+    }
+    
+    /**
+     * Temps passé en file avant la réservation, par ordre de réservation (fifo, sjf) et par type,
+     * pour comparer les deux ordres. Un nouvel essai compte à partir de sa date programmée.
+     * 
+     * @return L'attente en millisecondes
+     */
+    private long recordQueueWait(FileJob fileJob) {
+        LocalDateTime readyAt = fileJob.getNextAttemptAt() != null ? fileJob.getNextAttemptAt() : fileJob.getQueuedAt();
+        if (readyAt == null) {
+            return 0;
+        }
+        long waitMillis = Math.max(0, Duration.between(readyAt, LocalDateTime.now()).toMillis());
+        String name = "conversion.queue.wait." + queueDAO.getOrder().name().toLowerCase();
+        MetricsRegistry.recordTime(name, waitMillis);
+        MetricsRegistry.recordTime(name + "." + fileJob.getConversionType(), waitMillis);
+        return waitMillis;
+    }
+    
+    /**
+     * Renouvelle le bail des conversions réservées par ce nœud. Une conversion dont le bail
+     * est perdu est arrêtée : reprise ailleurs (renouvellements manqués), annulée ou supprimée
+     * depuis un autre nœud.
+     */
+    private void heartbeat() {
+        try {
+            Set<Long> lost = queueDAO.renewLeases(nodeId, leasedJobs.keySet(), leaseSeconds);
+            for (Long fileJobId : lost) {
+                ConversionTask task = leasedJobs.get(fileJobId);
+                if (task != null && task.cancel(CancelCause.LEASE_LOST, "bail perdu")) {
+                    MetricsRegistry.increment("conversion.queue.lease.lost");
+                    logger.warn("FileJob {}: bail perdu, conversion annulée sur ce nœud", fileJobId);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Nouvel essai au prochain battement, avant l'expiration du bail
+            logger.error("Renouvellement des baux impossible", e);
+        }
+        try {
+            // Profondeur de file de chaque cloison, relevée au rythme des battements
+            Map<ConversionType, Integer> queued = queueDAO.countQueuedByType();
+            for (ConversionBulkhead bulkhead : bulkheads.values()) {
+                bulkhead.setQueuedInDatabase(queued.getOrDefault(bulkhead.getType(), 0));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Relevé de la file par type impossible: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Reprend les conversions dont le bail a expiré : nœud arrêté brutalement, thread disparu.
+     */
+    private void reap() {
+        try {
+            if (recordRecovery(queueDAO.recoverExpired(maxAttempts), "bail expiré") > 0) {
+                wakeDispatcher();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Reprise des conversions au bail expiré impossible", e);
+        }
+    }
+    
+    private int recordRecovery(ConversionQueueDAO.Recovery recovery, String cause) {
+        if (recovery.requeued() > 0) {
+            MetricsRegistry.add("conversion.queue.recovered", recovery.requeued());
+            logger.warn("{} conversion(s) remise(s) en file ({})", recovery.requeued(), cause);
+        }
+        if (recovery.abandoned() > 0) {
+            MetricsRegistry.add("conversion.queue.abandoned", recovery.abandoned());
+            logger.error("{} conversion(s) abandonnée(s) après {} tentative(s) ({})", 
+                        recovery.abandoned(), maxAttempts, cause);
+        }
+        return recovery.requeued();
+    }
+    
+    /**
+     * Déclenche un passage du dispatcher sans attendre le prochain intervalle.
+     */
+    private void wakeDispatcher() {
+        if (!accepting || !workerEnabled) {
             return;
         }
+        try {
+            dispatcher.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            // Dispatcher arrêté
+        }
+    }
+    
+    /**
+     * Annule une conversion en file ou en cours : elle ne sera pas réservée, ou son thread est
+     * interrompu et sa sortie partielle supprimée. Sur un autre nœud, l'arrêt a lieu au prochain
+     * renouvellement de bail.
+     * 
+     * @param fileJobId L'ID du FileJob
+     * @return true si la conversion était en file ou en cours
+     */
+    public boolean cancelConversion(Long fileJobId) {
+        boolean cancelled = queueDAO.cancel(fileJobId);
+        // Conversion exécutée par ce nœud : l'arrêter sans attendre le battement
+        if (!cancelled) {
+            return false;
+        }
+        ConversionTask task = leasedJobs.get(fileJobId);
+        if (task != null) {
+            task.cancel(CancelCause.CANCELLED, "annulée par l'utilisateur");
+        }
+        MetricsRegistry.increment("conversion.cancelled");
+        logger.info("Conversion du FileJob {} annulée", fileJobId);
+        return true;
+    }
+    
+    /**
+     * Indique si le service accepte encore de nouvelles conversions.
+     */
+    public boolean isAccepting() {
+        return accepting;
+    }
+    
+    /**
+     * Raison de l'annulation d'une conversion en cours.
+     */
+    private enum CancelCause {
+        TIMEOUT,
+        // Annulation demandée (API, suppression du fichier) : statut CANCELLED déjà enregistré
+        CANCELLED,
+        // Bail perdu (repris par un autre nœud, conversion annulée ou supprimée depuis un autre nœud) :
+        // le résultat de ce nœud ne doit pas être enregistré
+        LEASE_LOST,
+        // Ressources non obtenues dans conversion.wait.timeout.seconds : la conversion retourne en file
+        WAIT_EXPIRED,
+        // Arrêt de l'application avant le démarrage du convertisseur : la conversion retourne en file
+        SHUTDOWN
+    }
+    
+    /**
+     * Conversion soumise au pool. Tâche nommée (et non lambda) pour pouvoir retrouver
+     * le FileJob des tâches restées en file lors de l'arrêt, et annuler une conversion réservée.
+     */
+    private class ConversionTask implements Runnable {
+        
+        private final FileJob fileJob;
+        private final ConversionBulkhead bulkhead;
+        private final ConversionContext context = new ConversionContext();
+        private volatile CancelCause cancelCause;
+        private volatile ScheduledFuture<?> deadline;
+        private long waitDeadline;
+        // Ressources obtenues, convertisseur appelé : seule cette phase profite du délai d'arrêt
+        private boolean converting;
+        
+        ConversionTask(FileJob fileJob, ConversionBulkhead bulkhead) {
+            this.fileJob = fileJob;
+            this.bulkhead = bulkhead;
+        }
         
-        /*// Mettre à jour le statut à PROCESSING
-        fileJob.setStatus(ConversionStatus.PROCESSING);
-        fileJobService.update(fileJob); */
+        Long getFileJobId() {
+            return fileJob.getId();
+        }
         
-        logger.info("Démarrage de la conversion asynchrone pour FileJob: {}", fileJob.getId());
+        /**
+         * Annule la conversion, qu'elle soit en cours ou encore en file du pool.
+         * 
+         * @return true si la conversion n'était ni terminée ni déjà annulée
+         */
+        synchronized boolean cancel(CancelCause cause, String reason) {
+            if (context.isCancelled()) {
+                return false;
+            }
+            cancelCause = cause;
+            return context.cancel(reason);
+        }
         
-        // Soumettre la conversion au thread pool
-        executorService.submit(() -> {
+        @Override
+        public void run() {
+            runningJobs.add(fileJob.getId());
+            context.bindWorker(Thread.currentThread());
+            waitDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitTimeoutSeconds);
             try {
-                performConversion(fileJob);
+                // Annulée avant d'avoir démarré
+                context.checkCancelled();
+                performConversion(this);
             } catch (Exception e) {
-                logger.error("Erreur lors de la conversion du FileJob: {}", fileJob.getId(), e);
-                handleConversionError(fileJob, e);
+                // Effacer l'interruption avant la mise à jour en base
+                boolean interrupted = Thread.interrupted();
+                if (cancelCause == CancelCause.TIMEOUT) {
+                    handleTimeout(fileJob);
+                } else if (cancelCause == CancelCause.CANCELLED) {
+                    logger.info("Conversion du FileJob {} annulée", fileJob.getId());
+                } else if (cancelCause == CancelCause.LEASE_LOST) {
+                    logger.warn("Conversion du FileJob {} abandonnée: bail perdu", fileJob.getId());
+                } else if (cancelCause == CancelCause.WAIT_EXPIRED) {
+                    requeueAfterWait();
+                } else if (cancelCause == CancelCause.SHUTDOWN) {
+                    requeueOnShutdown();
+                } else if (interrupted && !accepting) {
+                    // Interrompue par l'arrêt de l'application : remise en file par shutdown()
+                    logger.warn("Conversion du FileJob {} interrompue par l'arrêt", fileJob.getId());
+                } else {
+                    logger.error("Erreur lors de la conversion du FileJob: {}", fileJob.getId(), e);
+                    handleConversionError(fileJob, e);
+                }
+            } finally {
+                ScheduledFuture<?> armed = deadline;
+                if (armed != null) {
+                    armed.cancel(false);
+                }
+                context.finish();
+                // Le thread revient au pool sans interruption en attente
+                Thread.interrupted();
+                runningJobs.remove(fileJob.getId());
+                // Le thread libéré reprend aussitôt une conversion en file
+                bulkhead.release();
+                leasedJobs.remove(fileJob.getId());
+                wakeDispatcher();
             }
-        });
+        }
+        
+        /**
+         * Arme le délai de conversion, une fois les ressources obtenues : l'attente des permis
+         * n'est pas décomptée du délai mais de conversion.wait.timeout.seconds.
+         */
+        void armDeadline() {
+            deadline = scheduleTimeout();
+        }
+        
+        /**
+         * Temps restant pour obtenir les ressources, en nanosecondes (0 ou moins : dépassé).
+         */
+        long remainingWaitNanos() {
+            return waitDeadline - System.nanoTime();
+        }
+        
+        /**
+         * Abandonne la conversion si elle attend encore ses ressources (arrêt de l'application) :
+         * son thread est réveillé et la conversion remise en file.
+         * 
+         * @return true si la conversion a été abandonnée
+         */
+        synchronized boolean abandonIfWaiting() {
+            if (converting || context.isCancelled()) {
+                return false;
+            }
+            cancelCause = CancelCause.SHUTDOWN;
+            return context.cancel("arrêt de l'application avant le démarrage");
+        }
+        
+        /**
+         * Passe à l'appel du convertisseur, une fois les ressources obtenues.
+         * 
+         * @return false si l'arrêt a commencé ou si la conversion a été annulée entre-temps
+         */
+        synchronized boolean startConverting() {
+            if (!accepting) {
+                abandonIfWaiting();
+            }
+            if (context.isCancelled()) {
+                return false;
+            }
+            converting = true;
+            return true;
+        }
+        
+        synchronized void expireWait() {
+            if (!context.isCancelled()) {
+                cancelCause = CancelCause.WAIT_EXPIRED;
+            }
+        }
+        
+        private void requeueAfterWait() {
+            MetricsRegistry.increment("conversion.wait.expired");
+            logger.warn("FileJob {}: ressources non obtenues en {}s, conversion remise en file", 
+                       fileJob.getId(), waitTimeoutSeconds);
+            try {
+                queueDAO.requeue(nodeId, List.of(fileJob.getId()));
+            } catch (RuntimeException e) {
+                // Le bail expirera : la conversion sera reprise par le passage périodique
+                logger.error("Remise en file du FileJob {} impossible", fileJob.getId(), e);
+            }
+        }
+        
+        private void requeueOnShutdown() {
+            MetricsRegistry.increment("conversion.shutdown.requeued");
+            logger.info("FileJob {}: arrêt de l'application avant le démarrage, conversion remise en file", 
+                       fileJob.getId());
+            try {
+                queueDAO.requeue(nodeId, List.of(fileJob.getId()));
+            } catch (RuntimeException e) {
+                // Reprise au prochain démarrage de ce nœud
+                logger.error("Remise en file du FileJob {} impossible", fileJob.getId(), e);
+            }
+        }
+        
+        private ScheduledFuture<?> scheduleTimeout() {
+            if (timeoutSeconds <= 0) {
+                return null;
+            }
+            ConversionType type = fileJob.getConversionType();
+            return watchdog.schedule(() -> {
+                if (cancel(CancelCause.TIMEOUT, "délai de " + timeoutSeconds + "s dépassé")) {
+                    MetricsRegistry.increment("conversion.timeouts." + type);
+                    logger.warn("FileJob {} ({}): délai de {}s dépassé, conversion annulée", 
+                               fileJob.getId(), type, timeoutSeconds);
+                }
+            }, timeoutSeconds, TimeUnit.SECONDS);
+        }
     }
     
     /**
      * Effectue la conversion du fichier.
      */
-    private void performConversion(FileJob fileJob) throws ConversionException {
+    private void performConversion(ConversionTask task) throws ConversionException {
+        FileJob fileJob = task.fileJob;
+        ConversionContext context = task.context;
         logger.debug("Conversion en cours pour FileJob: {}", fileJob.getId());
         
         // Vérifier que le fichier source existe
@@ -108,47 +750,237 @@ public class ConversionService {
         File outputFile = new File(convertedDir, outputFilename);
         
         // Effectuer la conversion selon le type
-        switch (fileJob.getConversionType()) {
+        try {
+            checkAccepting(task);
+            // La mémoire d'abord : une conversion qui attend sa part du budget ne tient pas de permis CPU
+            MemoryBudget.Reservation memory = memoryBudget.acquire(fileJob, sourceFile, task.remainingWaitNanos());
+            if (memory == null) {
+                task.expireWait();
+                throw new InterruptedIOException("Mémoire non obtenue en " + waitTimeoutSeconds + "s");
+            }
+            try {
+                checkAccepting(task);
+                // Seul l'appel au convertisseur occupe le CPU : il attend un permis, pas le reste
+                acquireCpuPermit(task);
+                try {
+                    if (!task.startConverting()) {
+                        throw new InterruptedIOException("Conversion non démarrée: arrêt ou annulation");
+                    }
+                    // Le délai de conversion court à partir d'ici, pas pendant l'attente des ressources
+                    task.armDeadline();
+                    convert(fileJob.getConversionType(), sourceFile, outputFile, context);
+                } finally {
+                    if (cpuPermits != null) {
+                        cpuPermits.release();
+                    }
+                }
+            } finally {
+                memoryBudget.release(memory);
+            }
+            // Une annulation arrivée pendant l'écriture finale ne doit pas produire un COMPLETED
+            context.checkCancelled();
+        } catch (ConversionException | InterruptedIOException | RuntimeException e) {
+            // Ne pas laisser un fichier de sortie partiel
+            if (outputFile.exists() && !outputFile.delete()) {
+                logger.warn("Impossible de supprimer la sortie partielle: {}", outputFile.getAbsolutePath());
+            }
+            if (e instanceof ConversionException conversionException) {
+                throw conversionException;
+            }
+            throw new ConversionException("Conversion interrompue: " + e.getMessage(), e);
+        }
+        
+        // Mettre à jour le FileJob avec le résultat
+        fileJob.setStatus(ConversionStatus.COMPLETED);
+        fileJob.setOutputFilename(outputFilename);
+        fileJob.setOutputPath(outputFile.getAbsolutePath());
+        fileJob.setProcessedAt(LocalDateTime.now());
+        fileJob.setErrorMessage(null);
+        
+        if (!queueDAO.complete(fileJob, nodeId)) {
+            // Annulée ou supprimée pendant la conversion : pas de fichier orphelin
+            if (!outputFile.delete()) {
+                logger.warn("Impossible de supprimer la sortie ignorée: {}", outputFile.getAbsolutePath());
+            }
+            logger.info("Résultat de la conversion du FileJob {} ignoré: conversion annulée ou reprise", fileJob.getId());
+            return;
+        }
+        
+        logger.info("Conversion réussie pour FileJob: {}", fileJob.getId());
+    }
+    
+    /**
+     * Arrêt commencé : une conversion qui n'a pas encore ses ressources ne démarre plus,
+     * elle est remise en file (voir shutdown).
+     */
+    private void checkAccepting(ConversionTask task) throws InterruptedIOException {
+        if (!accepting) {
+            task.abandonIfWaiting();
+            // Abandonnée ici ou déjà par shutdown() : InterruptedIOException
+            task.context.checkCancelled();
+        }
+    }
+    
+    /**
+     * Appelle le convertisseur du type de conversion.
+     */
+    private void convert(ConversionType conversionType, File sourceFile, File outputFile, 
+                         ConversionContext context) throws ConversionException {
+        switch (conversionType) {
             case PDF_TO_WORD:
-                pdfToWordService.convert(sourceFile, outputFile);
+                pdfToWordService.convert(sourceFile, outputFile, context);
                 break;
             case WORD_TO_PDF:
-                wordToPdfService.convert(sourceFile, outputFile);
+                wordToPdfService.convert(sourceFile, outputFile, context);
                 break;
             case PDF_TO_EXCEL:
-                pdfToExcelService.convert(sourceFile, outputFile);
+                pdfToExcelService.convert(sourceFile, outputFile, context);
                 break;
             case EXCEL_TO_PDF:
-                excelToPdfService.convert(sourceFile, outputFile);
+                excelToPdfService.convert(sourceFile, outputFile, context);
                 break;
             default:
-                throw new ConversionException("Type de conversion non supporté: " + fileJob.getConversionType());
+                throw new ConversionException("Type de conversion non supporté: " + conversionType);
+        }
+    }
+    
+    /**
+     * Attend un permis CPU (threads virtuels uniquement). Les conversions en attente ne coûtent
+     * qu'un thread virtuel suspendu ; l'attente est interrompue par l'annulation de la conversion
+     * et bornée par conversion.wait.timeout.seconds (la conversion est alors remise en file).
+     */
+    private void acquireCpuPermit(ConversionTask task) throws InterruptedIOException {
+        if (cpuPermits == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (!cpuPermits.tryAcquire(Math.max(0, task.remainingWaitNanos()), TimeUnit.NANOSECONDS)) {
+                task.expireWait();
+                throw new InterruptedIOException("Permis CPU non obtenu en " + waitTimeoutSeconds + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Conversion interrompue en attente d'un permis CPU");
+        }
+        MetricsRegistry.recordTime("conversion.cpu.permit.wait", (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Gère les erreurs de conversion selon la RetryPolicy : une erreur transitoire est remise
+     * en file avec un délai (le thread ne l'attend pas), une erreur définitive passe en FAILED
+     * et une erreur transitoire dont les nouveaux essais sont épuisés en DEAD_LETTER.
+     */
+    private void handleConversionError(FileJob fileJob, Exception e) {
+        int maxRetries = retryPolicy.maxRetries(e);
+        // attempts compte l'essai qui vient d'échouer : le prochain est le nouvel essai n° attempts
+        int retry = fileJob.getAttempts();
+        String historyEntry = historyEntry(fileJob, e.getMessage(), rootCause(e));
+        
+        if (retry <= maxRetries) {
+            long delaySeconds = retryPolicy.backoffSeconds(retry);
+            if (queueDAO.scheduleRetry(fileJob.getId(), nodeId, delaySeconds, e.getMessage(), historyEntry)) {
+                MetricsRegistry.increment("conversion.retries.scheduled");
+                logger.warn("Conversion du FileJob {} en échec transitoire, nouvel essai {}/{} dans {}s: {}", 
+                           fileJob.getId(), retry, maxRetries, delaySeconds, e.getMessage());
+            } else {
+                logger.warn("FileJob {}: bail perdu, nouvel essai non programmé par ce nœud", fileJob.getId());
+            }
+            return;
         }
         
-        // Mettre à jour le FileJob avec le résultat
-        fileJob.setStatus(ConversionStatus.COMPLETED);
-        fileJob.setOutputFilename(outputFilename);
-        fileJob.setOutputPath(outputFile.getAbsolutePath());
+        boolean deadLetter = maxRetries > 0;
+        fileJob.setStatus(deadLetter ? ConversionStatus.DEAD_LETTER : ConversionStatus.FAILED);
+        fileJob.setErrorMessage(e.getMessage());
+        fileJob.setErrorHistory(appendHistory(fileJob.getErrorHistory(), historyEntry));
         fileJob.setProcessedAt(LocalDateTime.now());
-        fileJob.setErrorMessage(null);
         
-        fileJobService.update(fileJob);
+        recordFailure(fileJob);
         
-        logger.info("Conversion réussie pour FileJob: {}", fileJob.getId());
+        if (deadLetter) {
+            MetricsRegistry.increment("conversion.dead.letter");
+            logger.error("Conversion du FileJob {} en DEAD_LETTER après {} nouvel(s) essai(s) - Erreur: {}", 
+                        fileJob.getId(), maxRetries, e.getMessage());
+        } else {
+            logger.error("Conversion échouée pour FileJob: {} - Erreur: {}", 
+                        fileJob.getId(), e.getMessage());
+        }
     }
     
     /**
-     * Gère les erreurs de conversion.
+     * Marque en échec une conversion annulée à l'expiration de son délai.
      */
-    private void handleConversionError(FileJob fileJob, Exception e) {
+    private void handleTimeout(FileJob fileJob) {
         fileJob.setStatus(ConversionStatus.FAILED);
-        fileJob.setErrorMessage(e.getMessage());
+        fileJob.setErrorMessage("La conversion a dépassé le délai de " + timeoutSeconds + " secondes");
+        fileJob.setErrorHistory(appendHistory(fileJob.getErrorHistory(), 
+                                              historyEntry(fileJob, fileJob.getErrorMessage(), null)));
         fileJob.setProcessedAt(LocalDateTime.now());
         
-        fileJobService.update(fileJob);
+        recordFailure(fileJob);
         
-        logger.error("Conversion échouée pour FileJob: {} - Erreur: {}", 
-                    fileJob.getId(), e.getMessage());
+        logger.error("Conversion échouée pour FileJob: {} - délai de {}s dépassé", 
+                    fileJob.getId(), timeoutSeconds);
+    }
+    
+    /**
+     * Ligne de l'historique des erreurs : date, tentative, type de l'erreur d'origine et message.
+     */
+    private String historyEntry(FileJob fileJob, String message, Throwable cause) {
+        String entry = LocalDateTime.now().format(HISTORY_DATE_FORMAT) + " [tentative " + fileJob.getAttempts() + "] "
+                       + (cause != null ? cause.getClass().getSimpleName() + ": " : "") + message;
+        entry = entry.replace('\n', ' ');
+        return (entry.length() > 500 ? entry.substring(0, 500) : entry) + "\n";
+    }
+    
+    private String appendHistory(String history, String entry) {
+        return history != null ? history + entry : entry;
+    }
+    
+    private Throwable rootCause(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+    
+    private void recordFailure(FileJob fileJob) {
+        if (!queueDAO.complete(fileJob, nodeId)) {
+            logger.info("Échec de la conversion du FileJob {} non enregistré: conversion annulée ou reprise", 
+                       fileJob.getId());
+        }
+    }
+    
+    /**
+     * Ordre de réservation de la file (conversion.schedule.policy : fifo ou sjf).
+     */
+    private static ConversionQueueDAO.QueueOrder resolveQueueOrder() {
+        String policy = ConfigUtil.getProperty("conversion.schedule.policy", "sjf").trim();
+        try {
+            return ConversionQueueDAO.QueueOrder.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("conversion.schedule.policy inconnue: {}, ordre d'arrivée utilisé", policy);
+            return ConversionQueueDAO.QueueOrder.FIFO;
+        }
+    }
+    
+    /**
+     * Identifiant de ce nœud dans la file : conversion.node.id, ou à défaut le nom d'hôte.
+     * Il doit être stable d'un redémarrage à l'autre (pour retrouver les conversions réservées)
+     * et unique entre les nœuds : plusieurs JVM sur une même machine doivent le fixer
+     * (-Dconversion.node.id=...).
+     */
+    private static String resolveNodeId() {
+        String configured = ConfigUtil.getProperty("conversion.node.id", "").trim();
+        if (!configured.isEmpty()) {
+            return configured;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
     }
     
     /**
@@ -178,18 +1010,106 @@ public class ConversionService {
     }
     
     /**
-     * Arrête le service et libère les ressources.
+     * Arrête le service : refuse les nouvelles conversions, retire de la file celles qui
+     * n'ont pas commencé, puis laisse les conversions en cours se terminer pendant au plus
+     * conversion.shutdown.drain.seconds avant de les interrompre.
+     * Les conversions non exécutées ou interrompues sont remises en file dans la base.
+     * Celles qui attendent encore la mémoire ou un permis CPU (threads virtuels) sont réveillées
+     * et se remettent elles-mêmes en file : seules les conversions déjà dans le convertisseur
+     * occupent le délai d'arrêt.
+     * 
+     * @return Les IDs des FileJobs dont la conversion n'a pas été exécutée ou a été interrompue
+     *         (sans celles remises en file par leur propre thread)
      */
-    public void shutdown() {
-        executorService.shutdown();
+    public List<Long> shutdown() {
+        accepting = false;
+        dispatcher.shutdownNow();
+        
+        // Les conversions en file ne démarreront pas : elles restent à relancer
+        List<Runnable> queued = new ArrayList<>();
+        for (ConversionBulkhead bulkhead : bulkheads.values()) {
+            bulkhead.drainQueue(queued);
+            bulkhead.getExecutor().shutdown();
+        }
+        
+        List<Long> notRun = new ArrayList<>(taskIds(queued));
+        
+        // Les conversions qui attendent encore la mémoire ou un permis CPU ne démarreront pas :
+        // réveillées, elles se remettent en file et seul le convertisseur en cours profite du délai
+        int abandoned = 0;
+        for (ConversionTask task : leasedJobs.values()) {
+            if (runningJobs.contains(task.getFileJobId()) && task.abandonIfWaiting()) {
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            logger.info("Arrêt: {} conversion(s) en attente de ressources remise(s) en file", abandoned);
+        }
+        logger.info("Arrêt du ConversionService: {} conversion(s) en cours, {} en file non exécutée(s)", 
+                   runningJobs.size(), notRun.size());
+        
         try {
-            if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
+            if (!awaitBulkheads(TimeUnit.SECONDS.toNanos(drainSeconds))) {
+                List<Long> interrupted = new ArrayList<>(runningJobs);
+                logger.warn("Délai d'arrêt de {}s dépassé, interruption des conversions: {}", 
+                           drainSeconds, interrupted);
+                notRun.addAll(shutdownBulkheadsNow());
+                notRun.addAll(interrupted);
+                // Laisser les conversions interrompues atteindre leur point d'arrêt
+                awaitBulkheads(TimeUnit.SECONDS.toNanos(5));
             }
         } catch (InterruptedException e) {
-            executorService.shutdownNow();
+            notRun.addAll(shutdownBulkheadsNow());
+            notRun.addAll(runningJobs);
             Thread.currentThread().interrupt();
         }
+        
+        if (!notRun.isEmpty()) {
+            logger.warn("Conversions non exécutées lors de l'arrêt (FileJobs): {}", notRun);
+            try {
+                queueDAO.requeue(nodeId, notRun);
+            } catch (RuntimeException e) {
+                // Elles seront reprises au prochain démarrage de ce nœud
+                logger.error("Remise en file des conversions non exécutées impossible", e);
+            }
+        }
+        watchdog.shutdownNow();
+        memoryBudget.close();
         logger.info("ConversionService arrêté");
+        return notRun;
+    }
+    
+    /**
+     * Attend la fin des pools de toutes les cloisons, dans un délai commun.
+     * 
+     * @return true si tous les pools sont terminés
+     */
+    private boolean awaitBulkheads(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (ConversionBulkhead bulkhead : bulkheads.values()) {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (!bulkhead.getExecutor().awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private List<Long> shutdownBulkheadsNow() {
+        List<Long> ids = new ArrayList<>();
+        for (ConversionBulkhead bulkhead : bulkheads.values()) {
+            ids.addAll(taskIds(bulkhead.getExecutor().shutdownNow()));
+        }
+        return ids;
+    }
+    
+    private List<Long> taskIds(List<Runnable> tasks) {
+        List<Long> ids = new ArrayList<>();
+        for (Runnable task : tasks) {
+            if (task instanceof ConversionTask conversionTask) {
+                ids.add(conversionTask.getFileJobId());
+            }
+        }
+        return ids;
     }
 }
@@ -0,0 +1,325 @@
+package com.Ash_Conversion.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lecture en flux du corps d'un document Word (.docx), sans charger le modèle objet POI.
+ * La partie word/document.xml est lue directement dans l'archive avec StAX : les paragraphes
+ * et les lignes de tableau sont transmis au handler au fil de la lecture, si bien que
+ * la mémoire utilisée ne dépend pas de la taille du document.
+ * Le texte d'un paragraphe reprend celui de XWPFParagraph.getText() : textes des runs,
+ * tabulations et sauts de ligne, sans le contenu des zones de texte.
+ */
+public class DocxEventReader {
+
+    private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String OFFICE_DOCUMENT_TYPE = RELATIONSHIPS_NS + "/officeDocument";
+    private static final String DEFAULT_DOCUMENT_PART = "word/document.xml";
+
+    /**
+     * Cellule d'une ligne de tableau.
+     *
+     * @param text Texte de la cellule (paragraphes séparés par un saut de ligne)
+     * @param columnSpan Nombre de colonnes de la grille couvertes par la cellule
+     */
+    public record TableCell(String text, int columnSpan) {
+    }
+
+    /**
+     * Reçoit le corps du document dans l'ordre de lecture.
+     */
+    public interface BodyHandler {
+
+        /**
+         * Paragraphe hors tableau (éventuellement vide).
+         */
+        void paragraph(String text) throws IOException;
+
+        /**
+         * Début d'un tableau, appelé avant sa première ligne.
+         *
+         * @param columnCount Nombre de colonnes de la grille du tableau
+         */
+        void startTable(int columnCount) throws IOException;
+
+        /**
+         * Une ligne du tableau courant.
+         *
+         * @param header true si la ligne est marquée comme en-tête à répéter sur chaque page
+         */
+        void row(List<TableCell> cells, boolean header) throws IOException;
+
+        /**
+         * Fin du tableau courant.
+         */
+        void endTable() throws IOException;
+    }
+
+    /**
+     * Lit le corps d'un fichier .docx et le transmet au handler.
+     * Les tableaux imbriqués sont aplatis dans la cellule qui les contient.
+     *
+     * @param docxFile Le fichier Word source
+     * @param handler Le destinataire des paragraphes et des tableaux
+     * @throws IOException si l'archive ou le XML est illisible
+     */
+    public void read(File docxFile, BodyHandler handler) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (ZipFile zip = new ZipFile(docxFile)) {
+            String partName = findDocumentPart(zip, factory);
+            ZipEntry entry = zip.getEntry(partName);
+            if (entry == null) {
+                throw new IOException("Document Word invalide: partie " + partName + " introuvable");
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                XMLStreamReader xml = factory.createXMLStreamReader(in);
+                try {
+                    new BodyParser(xml, handler).parse();
+                } finally {
+                    xml.close();
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Document Word illisible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrouve la partie principale du document à partir de _rels/.rels
+     * (word/document.xml dans la quasi-totalité des fichiers).
+     */
+    private String findDocumentPart(ZipFile zip, XMLInputFactory factory) throws IOException, XMLStreamException {
+        ZipEntry rels = zip.getEntry("_rels/.rels");
+        if (rels == null) {
+            return DEFAULT_DOCUMENT_PART;
+        }
+        try (InputStream in = zip.getInputStream(rels)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT
+                            && "Relationship".equals(xml.getLocalName())
+                            && OFFICE_DOCUMENT_TYPE.equals(xml.getAttributeValue(null, "Type"))) {
+                        String target = xml.getAttributeValue(null, "Target");
+                        return target.startsWith("/") ? target.substring(1) : target;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        }
+        return DEFAULT_DOCUMENT_PART;
+    }
+
+    /**
+     * Parcourt word/document.xml et reconstitue paragraphes et lignes de tableau.
+     */
+    private static class BodyParser {
+
+        private final XMLStreamReader xml;
+        private final BodyHandler handler;
+
+        private final StringBuilder paragraph = new StringBuilder();
+        private int paragraphDepth;
+        private boolean inRun;
+        private boolean inText;
+
+        // Tableau de premier niveau en cours ; les tableaux imbriqués ne font qu'ajouter du texte à la cellule
+        private int tableDepth;
+        private int gridColumns;
+        private boolean tableStarted;
+        private boolean bodyRowSeen;
+        private final List<TableCell> rowCells = new ArrayList<>();
+        private boolean headerRow;
+        private final StringBuilder cell = new StringBuilder();
+        private int cellSpan;
+
+        BodyParser(XMLStreamReader xml, BodyHandler handler) {
+            this.xml = xml;
+            this.handler = handler;
+        }
+
+        void parse() throws XMLStreamException, IOException {
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> startElement();
+                    case XMLStreamConstants.END_ELEMENT -> endElement();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA,
+                         XMLStreamConstants.SPACE -> {
+                        if (inText) {
+                            paragraph.append(xml.getText());
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void startElement() throws XMLStreamException {
+            if (!WORDPROCESSING_NS.equals(xml.getNamespaceURI())) {
+                return;
+            }
+            switch (xml.getLocalName()) {
+                case "p" -> {
+                    if (paragraphDepth++ == 0) {
+                        paragraph.setLength(0);
+                    }
+                }
+                case "r" -> inRun = paragraphDepth > 0;
+                case "t" -> inText = inRun;
+                // w:tab et w:br hors d'un run sont des définitions (taquets de tabulation...)
+                case "tab", "ptab" -> appendInRun('\t');
+                case "br", "cr" -> appendInRun('\n');
+                // Le texte des zones de texte n'appartient pas au paragraphe qui les ancre
+                case "txbxContent" -> skipElement();
+                case "tbl" -> {
+                    if (tableDepth++ == 0) {
+                        gridColumns = 0;
+                        tableStarted = false;
+                        bodyRowSeen = false;
+                    }
+                }
+                case "gridCol" -> {
+                    if (tableDepth == 1) {
+                        gridColumns++;
+                    }
+                }
+                case "tr" -> {
+                    if (tableDepth == 1) {
+                        rowCells.clear();
+                        headerRow = false;
+                    }
+                }
+                case "tblHeader" -> {
+                    if (tableDepth == 1 && !"false".equals(attribute("val")) && !"0".equals(attribute("val"))) {
+                        headerRow = true;
+                    }
+                }
+                case "tc" -> {
+                    if (tableDepth == 1) {
+                        cell.setLength(0);
+                        cellSpan = 1;
+                    }
+                }
+                case "gridSpan" -> {
+                    if (tableDepth == 1) {
+                        cellSpan = parseSpan(attribute("val"));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void endElement() throws IOException {
+            if (!WORDPROCESSING_NS.equals(xml.getNamespaceURI())) {
+                return;
+            }
+            switch (xml.getLocalName()) {
+                case "p" -> {
+                    if (--paragraphDepth == 0) {
+                        endParagraph();
+                    }
+                }
+                case "r" -> inRun = false;
+                case "t" -> inText = false;
+                case "tc" -> {
+                    if (tableDepth == 1) {
+                        rowCells.add(new TableCell(cell.toString(), cellSpan));
+                    }
+                }
+                case "tr" -> {
+                    if (tableDepth == 1) {
+                        endRow();
+                    }
+                }
+                case "tbl" -> {
+                    if (--tableDepth == 0 && tableStarted) {
+                        handler.endTable();
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void endParagraph() throws IOException {
+            String text = paragraph.toString();
+            if (tableDepth == 0) {
+                handler.paragraph(text);
+            } else {
+                if (!cell.isEmpty()) {
+                    cell.append('\n');
+                }
+                cell.append(text);
+            }
+        }
+
+        private void endRow() throws IOException {
+            if (!tableStarted) {
+                // Sans grille déclarée, la première ligne donne le nombre de colonnes
+                int columns = gridColumns;
+                if (columns == 0) {
+                    for (TableCell rowCell : rowCells) {
+                        columns += rowCell.columnSpan();
+                    }
+                }
+                handler.startTable(Math.max(1, columns));
+                tableStarted = true;
+            }
+            // Seules les lignes d'en-tête en haut du tableau sont répétées
+            boolean header = headerRow && !bodyRowSeen;
+            bodyRowSeen |= !header;
+            handler.row(new ArrayList<>(rowCells), header);
+        }
+
+        private void appendInRun(char c) {
+            if (inRun) {
+                paragraph.append(c);
+            }
+        }
+
+        private String attribute(String localName) {
+            String value = xml.getAttributeValue(WORDPROCESSING_NS, localName);
+            return value != null ? value : xml.getAttributeValue(null, localName);
+        }
+
+        private static int parseSpan(String value) {
+            try {
+                return value != null ? Math.max(1, Integer.parseInt(value)) : 1;
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+
+        /**
+         * Saute l'élément courant et tout son contenu.
+         */
+        private void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+    }
+}
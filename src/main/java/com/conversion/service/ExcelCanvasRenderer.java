@@ -0,0 +1,216 @@
+package com.Ash_Conversion.service;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.util.List;
+
+/**
+ * Rendu direct d'une feuille Excel sur le PdfCanvas, sans moteur de mise en page iText.
+ * Les colonnes sont placées à des abscisses précalculées à partir de la longueur maximale
+ * du texte de chaque colonne, toutes les lignes ont la même hauteur, la grille est tracée
+ * une fois par page et la pagination est faite à la main (ligne d'en-tête répétée).
+ * Réservé aux feuilles simples : pas de cellules fusionnées ni de renvoi à la ligne.
+ */
+public class ExcelCanvasRenderer implements ExcelEventReader.SheetHandler {
+
+    private static final float FONT_SIZE = 10f;
+    private static final float TITLE_FONT_SIZE = 14f;
+    private static final float PADDING = 3f;
+    private static final float MARGIN = 36f;
+    private static final float ROW_HEIGHT = FONT_SIZE + 2 * PADDING;
+    private static final float LINE_WIDTH = 0.5f;
+    // Largeur estimée d'un caractère Helvetica (majuscules comprises), en fraction de la taille de police
+    private static final float CHAR_WIDTH_RATIO = 0.65f;
+    private static final int MAX_COLUMN_CHARS = 60;
+    private static final float MIN_COLUMN_WIDTH = 20f;
+
+    private final PdfDocument pdfDoc;
+    private final List<ExcelUsedRangeScanner.SheetRange> usedRanges;
+    private final PdfFont font;
+    private final PdfFont boldFont;
+    private boolean multipleSheets;
+
+    // Feuille courante
+    private int maxColumns;
+    private int lastRow;
+    private PageSize pageSize;
+    private float[] columnX;
+    private String[] header;
+
+    // Page courante
+    private PdfPage page;
+    private PdfCanvas canvas;
+    private float tableTop;
+    private float y;
+    private int rowsOnPage;
+
+    public ExcelCanvasRenderer(PdfDocument pdfDoc, List<ExcelUsedRangeScanner.SheetRange> usedRanges,
+                               PdfFont font, PdfFont boldFont) {
+        this.pdfDoc = pdfDoc;
+        this.usedRanges = usedRanges;
+        this.font = font;
+        this.boldFont = boldFont;
+    }
+
+    /**
+     * Indique si les colonnes tiennent sur une page A4 paysage sans tronquer le texte.
+     * Une colonne plus longue que MAX_COLUMN_CHARS serait tronquée : la feuille doit passer
+     * par le moteur de mise en page, qui renvoie le texte à la ligne.
+     */
+    public static boolean fitsPage(int[] columnChars) {
+        for (int chars : columnChars) {
+            if (chars > MAX_COLUMN_CHARS) {
+                return false;
+            }
+        }
+        return naturalWidth(columnChars) <= PageSize.A4.rotate().getWidth() - 2 * MARGIN;
+    }
+
+    private static float naturalWidth(int[] columnChars) {
+        float width = 0;
+        for (int chars : columnChars) {
+            width += columnWidth(chars);
+        }
+        return width;
+    }
+
+    private static float columnWidth(int chars) {
+        float textWidth = Math.min(chars, MAX_COLUMN_CHARS) * FONT_SIZE * CHAR_WIDTH_RATIO;
+        return Math.max(MIN_COLUMN_WIDTH, textWidth + 2 * PADDING);
+    }
+
+    @Override
+    public void startWorkbook(List<String> sheetNames) {
+        multipleSheets = sheetNames.size() > 1;
+    }
+
+    @Override
+    public void startSheet(int sheetIndex, String sheetName, int columnCount) {
+        ExcelUsedRangeScanner.SheetRange range = usedRanges.get(sheetIndex);
+        maxColumns = range.columnCount();
+        lastRow = range.lastRow();
+        header = null;
+
+        // Portrait si les colonnes y tiennent, paysage sinon ; réduction proportionnelle au-delà
+        float natural = naturalWidth(range.columnChars());
+        pageSize = natural <= PageSize.A4.getWidth() - 2 * MARGIN ? PageSize.A4 : PageSize.A4.rotate();
+        float scale = Math.min(1f, (pageSize.getWidth() - 2 * MARGIN) / Math.max(natural, 1f));
+        columnX = new float[maxColumns + 1];
+        columnX[0] = MARGIN;
+        for (int col = 0; col < maxColumns; col++) {
+            columnX[col + 1] = columnX[col] + columnWidth(range.columnChars()[col]) * scale;
+        }
+
+        // Chaque feuille commence sur une nouvelle page, avec son titre si le classeur en a plusieurs
+        if (multipleSheets) {
+            newPage();
+            canvas.beginText()
+                .setFontAndSize(boldFont, TITLE_FONT_SIZE)
+                .moveText(MARGIN, y - TITLE_FONT_SIZE)
+                .showText(sheetName)
+                .endText();
+            y -= TITLE_FONT_SIZE + 2 * PADDING + FONT_SIZE;
+            tableTop = y;
+        }
+    }
+
+    @Override
+    public void row(int rowIndex, String[] values) {
+        if (maxColumns == 0 || rowIndex > lastRow) {
+            return;
+        }
+        if (page == null) {
+            newPage();
+        }
+        if (header == null) {
+            // La première ligne sert d'en-tête répété sur chaque page
+            header = values;
+        } else if (y - ROW_HEIGHT < MARGIN) {
+            finishPage();
+            newPage();
+            drawRow(header);
+        }
+        drawRow(values);
+    }
+
+    @Override
+    public void endSheet() {
+        if (page != null) {
+            finishPage();
+        }
+    }
+
+    private void newPage() {
+        page = pdfDoc.addNewPage(pageSize);
+        canvas = new PdfCanvas(page);
+        y = pageSize.getHeight() - MARGIN;
+        tableTop = y;
+        rowsOnPage = 0;
+    }
+
+    private void drawRow(String[] values) {
+        float baseline = y - PADDING - FONT_SIZE * 0.8f;
+        canvas.beginText().setFontAndSize(font, FONT_SIZE);
+        for (int col = 0; col < maxColumns; col++) {
+            String value = col < values.length ? values[col] : null;
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            String text = fitText(value, columnX[col + 1] - columnX[col] - 2 * PADDING);
+            canvas.setTextMatrix(1, 0, 0, 1, columnX[col] + PADDING, baseline);
+            canvas.showText(text);
+        }
+        canvas.endText();
+        y -= ROW_HEIGHT;
+        rowsOnPage++;
+    }
+
+    /**
+     * Tronque le texte à la largeur de la colonne (les colonnes sont dimensionnées pour
+     * que cela reste exceptionnel).
+     */
+    private String fitText(String text, float maxWidth) {
+        if (font.getWidth(text, FONT_SIZE) <= maxWidth) {
+            return text;
+        }
+        // Largeurs des glyphes cumulées en un seul passage jusqu'à la place laissée par "..."
+        float available = maxWidth - font.getWidth("...", FONT_SIZE);
+        float width = 0;
+        int length = 0;
+        while (length < text.length()) {
+            int codePoint = text.codePointAt(length);
+            width += font.getWidth(codePoint, FONT_SIZE);
+            if (width > available) {
+                break;
+            }
+            length += Character.charCount(codePoint);
+        }
+        return length > 0 ? text.substring(0, length) + "..." : "";
+    }
+
+    /**
+     * Trace la grille des lignes de la page puis écrit la page dans le PDF.
+     */
+    private void finishPage() {
+        if (rowsOnPage > 0) {
+            float tableBottom = tableTop - rowsOnPage * ROW_HEIGHT;
+            canvas.setLineWidth(LINE_WIDTH);
+            for (int i = 0; i <= rowsOnPage; i++) {
+                float lineY = tableTop - i * ROW_HEIGHT;
+                canvas.moveTo(columnX[0], lineY).lineTo(columnX[maxColumns], lineY);
+            }
+            for (float x : columnX) {
+                canvas.moveTo(x, tableTop).lineTo(x, tableBottom);
+            }
+            canvas.stroke();
+        }
+        canvas.release();
+        page.flush();
+        page = null;
+        canvas = null;
+    }
+}
@@ -0,0 +1,596 @@
+package com.Ash_Conversion.service;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MergeCellsRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture en flux d'un classeur Excel, sans charger le modèle objet POI.
+ * Les .xlsx sont lus avec le lecteur SAX XSSF (table des chaînes partagées en lecture seule),
+ * les .xls avec l'API événementielle HSSF. Les lignes sont transmises au handler au fil
+ * de la lecture : la mémoire utilisée ne dépend pas du nombre de lignes.
+ * Un .xlsx peut aussi être ouvert une fois ({@link #openXlsx(File)}) pour lire ses feuilles
+ * en parallèle, chacune étant une partie distincte de l'archive.
+ */
+public class ExcelEventReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelEventReader.class);
+
+    /**
+     * Reçoit le contenu du classeur, feuille par feuille et ligne par ligne.
+     */
+    public interface SheetHandler {
+
+        /**
+         * Appelé une fois, avant la première feuille.
+         */
+        default void startWorkbook(List<String> sheetNames) throws IOException {
+        }
+
+        /**
+         * Début d'une feuille.
+         *
+         * @param columnCount Nombre de colonnes déclaré par le fichier (0 si inconnu)
+         */
+        void startSheet(int sheetIndex, String sheetName, int columnCount) throws IOException;
+
+        /**
+         * Une ligne de la feuille. Les valeurs sont indexées par colonne (null pour une cellule absente).
+         */
+        void row(int rowIndex, String[] values) throws IOException;
+
+        /**
+         * Mise en forme de la feuille courante, signalée juste avant {@link #endSheet()}.
+         *
+         * @param mergedCells true si la feuille contient des cellules fusionnées
+         * @param wrappedText true si une cellule non vide a le renvoi à la ligne activé
+         */
+        default void sheetStyle(boolean mergedCells, boolean wrappedText) throws IOException {
+        }
+
+        /**
+         * Fin de la feuille courante.
+         */
+        void endSheet() throws IOException;
+    }
+
+    /**
+     * Lit un fichier Excel (.xlsx ou .xls) et transmet son contenu au handler.
+     *
+     * @param excelFile Le fichier Excel source
+     * @param handler Le destinataire des lignes
+     * @throws IOException si la lecture échoue ou si le format n'est pas supporté
+     */
+    public void read(File excelFile, SheetHandler handler) throws IOException {
+        String filename = excelFile.getName().toLowerCase();
+        try {
+            if (filename.endsWith(".xlsx")) {
+                readXlsx(excelFile, handler);
+            } else if (filename.endsWith(".xls")) {
+                readXls(excelFile, handler);
+            } else {
+                throw new IOException("Format Excel non supporté: " + filename);
+            }
+        } catch (UncheckedIOException e) {
+            // Erreur levée par le handler depuis un callback SAX/HSSF
+            throw e.getCause();
+        }
+    }
+
+    // ==================== XLSX (SAX) ====================
+
+    private void readXlsx(File excelFile, SheetHandler handler) throws IOException {
+        try (XlsxWorkbook workbook = openXlsx(excelFile)) {
+            handler.startWorkbook(workbook.getSheetNames());
+            for (int sheetIndex = 0; sheetIndex < workbook.getSheetNames().size(); sheetIndex++) {
+                workbook.parseSheet(sheetIndex, handler);
+            }
+        }
+    }
+
+    /**
+     * Ouvre un classeur .xlsx : table des chaînes partagées et styles sont chargés une seule fois
+     * et partagés par les lectures de feuilles.
+     *
+     * @param excelFile Le fichier .xlsx source
+     * @return Le classeur ouvert, à fermer après lecture
+     * @throws IOException si le fichier est illisible
+     */
+    public XlsxWorkbook openXlsx(File excelFile) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+            return new XlsxWorkbook(pkg);
+        } catch (OpenXML4JException | SAXException e) {
+            closeQuietly(pkg);
+            throw new IOException("Fichier Excel (.xlsx) illisible: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(pkg);
+            throw e;
+        }
+    }
+
+    /**
+     * Nombre de cellules déclarées par les feuilles d'un .xlsx (élément dimension de chaque
+     * feuille), sans lire les lignes ni la table des chaînes partagées.
+     * Sert à estimer le coût d'une conversion avant de l'exécuter.
+     *
+     * @param excelFile Le fichier .xlsx source
+     * @return Le total lignes × colonnes déclaré, 0 si aucune feuille ne déclare sa dimension
+     * @throws IOException si le fichier est illisible
+     */
+    public long countDeclaredCells(File excelFile) throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            long cells = 0;
+            while (sheets.hasNext()) {
+                try (InputStream ignored = sheets.next()) {
+                    CellReference lastCell = readDeclaredLastCell(sheets.getSheetPart());
+                    if (lastCell != null) {
+                        cells += (long) (lastCell.getRow() + 1) * (lastCell.getCol() + 1);
+                    }
+                }
+            }
+            return cells;
+        } catch (OpenXML4JException e) {
+            throw new IOException("Fichier Excel (.xlsx) illisible: " + e.getMessage(), e);
+        } finally {
+            closeQuietly(pkg);
+        }
+    }
+
+    private static void closeQuietly(OPCPackage pkg) {
+        if (pkg != null) {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Classeur .xlsx ouvert. Les feuilles peuvent être lues depuis plusieurs threads à la fois :
+     * les tables partagées ne sont plus modifiées après le chargement et chaque lecture
+     * ouvre son propre flux sur la partie de la feuille.
+     */
+    public class XlsxWorkbook implements Closeable {
+
+        private final OPCPackage pkg;
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final List<String> sheetNames = new ArrayList<>();
+        private final List<PackagePart> sheetParts = new ArrayList<>();
+
+        private XlsxWorkbook(OPCPackage pkg) throws IOException, OpenXML4JException, SAXException {
+            this.pkg = pkg;
+            XSSFReader reader = new XSSFReader(pkg);
+            this.strings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream ignored = sheets.next()) {
+                    sheetNames.add(sheets.getSheetName());
+                    sheetParts.add(sheets.getSheetPart());
+                }
+            }
+        }
+
+        public List<String> getSheetNames() {
+            return sheetNames;
+        }
+
+        /**
+         * Lit une seule feuille : le handler reçoit startWorkbook avec tous les noms de feuilles,
+         * puis les événements de la feuille demandée.
+         *
+         * @param sheetIndex Index de la feuille à lire (à partir de 0)
+         * @param handler Le destinataire des lignes
+         * @throws IOException si la lecture échoue
+         */
+        public void readSheet(int sheetIndex, SheetHandler handler) throws IOException {
+            try {
+                handler.startWorkbook(sheetNames);
+                parseSheet(sheetIndex, handler);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void parseSheet(int sheetIndex, SheetHandler handler) throws IOException {
+            PackagePart sheetPart = sheetParts.get(sheetIndex);
+            try (InputStream sheetStream = sheetPart.getInputStream()) {
+                handler.startSheet(sheetIndex, sheetNames.get(sheetIndex), readDeclaredColumns(sheetPart));
+
+                // DataFormatter n'est pas thread-safe : un par lecture de feuille
+                XlsxStyleFilter styleFilter = new XlsxStyleFilter(XMLHelper.newXMLReader(), styles);
+                styleFilter.setContentHandler(new XSSFSheetXMLHandler(
+                    styles, strings, new XlsxRowCollector(handler), new DataFormatter(), false));
+                styleFilter.parse(new InputSource(sheetStream));
+
+                handler.sheetStyle(styleFilter.mergedCells, styleFilter.wrappedText);
+                handler.endSheet();
+            } catch (SAXException | ParserConfigurationException e) {
+                throw new IOException("Fichier Excel (.xlsx) illisible: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // Paquet ouvert en lecture seule : rien à enregistrer
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Lit l'élément dimension en tête de la feuille (ex: A1:T5000) pour connaître
+     * le nombre de colonnes sans parcourir les lignes.
+     */
+    private int readDeclaredColumns(PackagePart sheetPart) {
+        CellReference lastCell = readDeclaredLastCell(sheetPart);
+        return lastCell != null ? lastCell.getCol() + 1 : 0;
+    }
+
+    /**
+     * Dernière cellule de l'élément dimension de la feuille, null s'il est absent ou illisible.
+     */
+    private static CellReference readDeclaredLastCell(PackagePart sheetPart) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try (InputStream in = sheetPart.getInputStream()) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String name = xml.getLocalName();
+                    if ("dimension".equals(name)) {
+                        String ref = xml.getAttributeValue(null, "ref");
+                        String lastCell = ref.substring(ref.indexOf(':') + 1);
+                        return new CellReference(lastCell);
+                    }
+                    if ("sheetData".equals(name)) {
+                        return null;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            logger.debug("Dimension de feuille illisible: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Regroupe les cellules SAX d'une ligne avant de la transmettre au handler.
+     */
+    private static class XlsxRowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final SheetHandler handler;
+        private final List<String> values = new ArrayList<>();
+
+        XlsxRowCollector(SheetHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : values.size();
+            while (values.size() <= col) {
+                values.add(null);
+            }
+            values.set(col, formattedValue);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                handler.row(rowNum, values.toArray(new String[0]));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Filtre SAX placé devant XSSFSheetXMLHandler pour relever les cellules fusionnées
+     * et les cellules non vides dont le style active le renvoi à la ligne.
+     */
+    private static class XlsxStyleFilter extends XMLFilterImpl {
+
+        private final StylesTable styles;
+        private final Map<Integer, Boolean> wrapStyles = new HashMap<>();
+        private boolean mergedCells;
+        private boolean wrappedText;
+        private boolean cellWraps;
+        private boolean cellHasValue;
+
+        XlsxStyleFilter(XMLReader parent, StylesTable styles) {
+            super(parent);
+            this.styles = styles;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts)
+                throws SAXException {
+            switch (localName) {
+                case "c" -> {
+                    String style = atts.getValue("s");
+                    cellWraps = style != null && isWrapStyle(style);
+                    cellHasValue = false;
+                }
+                case "v", "is" -> cellHasValue = true;
+                case "mergeCell" -> mergedCells = true;
+                default -> {
+                }
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("c".equals(localName) && cellWraps && cellHasValue) {
+                wrappedText = true;
+            }
+            super.endElement(uri, localName, qName);
+        }
+
+        private boolean isWrapStyle(String style) {
+            try {
+                int index = Integer.parseInt(style);
+                return wrapStyles.computeIfAbsent(index, i -> i < styles.getNumCellStyles()
+                    && styles.getStyleAt(i).getWrapText());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+
+    // ==================== XLS (HSSF événementiel) ====================
+
+    private void readXls(File excelFile, SheetHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(excelFile, true)) {
+            XlsRecordListener listener = new XlsRecordListener(handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new MissingRecordAwareHSSFListener(listener.formatListener));
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * Reconstitue les feuilles et les lignes à partir des enregistrements BIFF.
+     */
+    private static class XlsRecordListener implements HSSFListener {
+
+        private final SheetHandler handler;
+        private final FormatTrackingHSSFListener formatListener;
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private final List<ExtendedFormatRecord> extendedFormats = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        private String[] sheetNames;
+        private SSTRecord sst;
+        private int depth;
+        private int sheetIndex = -1;
+        private boolean inSheet;
+        private boolean sheetStarted;
+        private int currentRow = -1;
+        private boolean mergedCells;
+        private boolean wrappedText;
+        // Une formule de type chaîne est suivie d'un StringRecord contenant sa valeur
+        private int pendingStringColumn = -1;
+
+        XlsRecordListener(SheetHandler handler) {
+            this.handler = handler;
+            this.formatListener = new FormatTrackingHSSFListener(this);
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            try {
+                process(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void process(Record record) throws IOException {
+            switch (record.getSid()) {
+                case BOFRecord.sid -> {
+                    depth++;
+                    BOFRecord bof = (BOFRecord) record;
+                    if (depth == 1 && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                        if (sheetNames == null) {
+                            sheetNames = Arrays.stream(BoundSheetRecord.orderByBofPosition(boundSheets))
+                                .map(BoundSheetRecord::getSheetname).toArray(String[]::new);
+                            handler.startWorkbook(List.of(sheetNames));
+                        }
+                        sheetIndex++;
+                        inSheet = true;
+                        sheetStarted = false;
+                        currentRow = -1;
+                        mergedCells = false;
+                        wrappedText = false;
+                    }
+                }
+                case EOFRecord.sid -> {
+                    depth--;
+                    if (depth == 0 && inSheet) {
+                        flushRow();
+                        ensureSheetStarted(0);
+                        handler.sheetStyle(mergedCells, wrappedText);
+                        handler.endSheet();
+                        inSheet = false;
+                    }
+                }
+                case BoundSheetRecord.sid -> boundSheets.add((BoundSheetRecord) record);
+                case SSTRecord.sid -> sst = (SSTRecord) record;
+                case ExtendedFormatRecord.sid -> extendedFormats.add((ExtendedFormatRecord) record);
+                case MergeCellsRecord.sid -> {
+                    if (inSheet && depth == 1) {
+                        mergedCells = true;
+                    }
+                }
+                case DimensionsRecord.sid -> {
+                    if (inSheet && depth == 1) {
+                        ensureSheetStarted(((DimensionsRecord) record).getLastCol());
+                    }
+                }
+                case LabelSSTRecord.sid -> {
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    cell(label, sst != null ? sst.getString(label.getSSTIndex()).getString() : "");
+                }
+                case LabelRecord.sid -> {
+                    LabelRecord label = (LabelRecord) record;
+                    cell(label, label.getValue());
+                }
+                case NumberRecord.sid -> {
+                    NumberRecord number = (NumberRecord) record;
+                    cell(number, formatListener.formatNumberDateCell(number));
+                }
+                case FormulaRecord.sid -> {
+                    FormulaRecord formula = (FormulaRecord) record;
+                    CellType resultType = formula.getCachedResultTypeEnum();
+                    if (resultType == CellType.STRING) {
+                        cell(formula, null);
+                        pendingStringColumn = formula.getColumn();
+                    } else if (resultType == CellType.BOOLEAN) {
+                        cell(formula, formatBoolean(formula.getCachedBooleanValue()));
+                    } else if (resultType == CellType.NUMERIC) {
+                        cell(formula, formatListener.formatNumberDateCell(formula));
+                    } else {
+                        cell(formula, "");
+                    }
+                }
+                case StringRecord.sid -> {
+                    if (pendingStringColumn >= 0) {
+                        values.set(pendingStringColumn, ((StringRecord) record).getString());
+                        pendingStringColumn = -1;
+                    }
+                }
+                case BoolErrRecord.sid -> {
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    cell(boolErr, boolErr.isBoolean() ? formatBoolean(boolErr.getBooleanValue()) : "");
+                }
+                default -> {
+                    if (record instanceof LastCellOfRowDummyRecord lastCell && inSheet && depth == 1) {
+                        // Fin de ligne (y compris une ligne déclarée sans cellule)
+                        ensureSheetStarted(0);
+                        if (currentRow != lastCell.getRow()) {
+                            flushRow();
+                            currentRow = lastCell.getRow();
+                        }
+                        flushRow();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Même rendu que le DataFormatter du lecteur XSSF (TRUE/FALSE).
+         */
+        private static String formatBoolean(boolean value) {
+            return value ? "TRUE" : "FALSE";
+        }
+
+        private void ensureSheetStarted(int columnCount) throws IOException {
+            if (!sheetStarted) {
+                String name = sheetIndex < sheetNames.length ? sheetNames[sheetIndex] : "Feuille " + (sheetIndex + 1);
+                handler.startSheet(sheetIndex, name, columnCount);
+                sheetStarted = true;
+            }
+        }
+
+        private void cell(CellValueRecordInterface record, String value) throws IOException {
+            if (!inSheet || depth != 1) {
+                return;
+            }
+            ensureSheetStarted(0);
+            if (record.getRow() != currentRow) {
+                flushRow();
+                currentRow = record.getRow();
+            }
+            int col = record.getColumn();
+            while (values.size() <= col) {
+                values.add(null);
+            }
+            values.set(col, value);
+
+            int xfIndex = record.getXFIndex();
+            if (!wrappedText && xfIndex < extendedFormats.size() && extendedFormats.get(xfIndex).getWrapText()
+                    && (value == null || !value.isEmpty())) {
+                wrappedText = true;
+            }
+        }
+
+        private void flushRow() throws IOException {
+            if (currentRow >= 0) {
+                handler.row(currentRow, values.toArray(new String[0]));
+                values.clear();
+                currentRow = -1;
+                pendingStringColumn = -1;
+            }
+        }
+    }
+}
@@ -1,29 +1,79 @@
 package com.Ash_Conversion.service;
 
 import com.Ash_Conversion.exception.ConversionException;
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.FontCache;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.pdf.PageLabelNumberingStyle;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfOutline;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.navigation.PdfExplicitDestination;
+import com.itextpdf.kernel.utils.PdfMerger;
+import com.itextpdf.kernel.utils.PdfMergerProperties;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service pour la conversion Excel (.xlsx, .xls) → PDF.
- * Utilise Apache POI pour lire l'Excel et iText 7 pour créer le PDF.
+ * Lit l'Excel en flux (API événementielle POI) et crée le PDF avec iText 7,
+ * par lots de lignes vidés au fur et à mesure. Une première lecture sans mise en page
+ * détermine la plage utilisée de chaque feuille et rejette les feuilles hors limites.
+ * Les grands classeurs simples (sans cellules fusionnées ni renvoi à la ligne) sont dessinés
+ * directement sur le PdfCanvas par {@link ExcelCanvasRenderer}, sans moteur de mise en page.
+ * Les classeurs .xlsx à plusieurs feuilles sont rendus en parallèle, une feuille par PDF
+ * temporaire, puis fusionnés dans l'ordre des feuilles avec un signet par feuille.
  */
 public class ExcelToPdfService {
     
     private static final Logger logger = LoggerFactory.getLogger(ExcelToPdfService.class);
     
+    private static final boolean PARALLEL_ENABLED =
+        ConfigUtil.getBooleanProperty("conversion.excel.parallel.enabled", true);
+    private static final int PARALLEL_MIN_SHEETS =
+        Math.max(2, ConfigUtil.getIntProperty("conversion.excel.parallel.min.sheets", 2));
+    // Au plus une feuille par cœur : sans cœur libre, le rendu parallèle ne paie que la fusion
+    private static final int PARALLELISM = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+        ConfigUtil.getIntProperty("conversion.excel.parallel.sheets", Runtime.getRuntime().availableProcessors())));
+    
+    // Pool partagé par toutes les conversions : borne le nombre total de feuilles rendues simultanément
+    private static final ForkJoinPool sheetPool = new ForkJoinPool(PARALLELISM, pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("excel-sheet-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+    
+    private final ExcelEventReader excelReader = new ExcelEventReader();
+    private final int flushRows = Math.max(1, ConfigUtil.getIntProperty("conversion.excel.flush.rows", 200));
+    
+    // Limites de la plage utilisée d'une feuille
+    private final int maxRows = ConfigUtil.getIntProperty("conversion.excel.max.rows", 1000000);
+    private final int maxColumns = ConfigUtil.getIntProperty("conversion.excel.max.columns", 256);
+    private final long maxCells = ConfigUtil.getLongProperty("conversion.excel.max.cells", 20000000L);
+    private final long sparseMinCells = ConfigUtil.getLongProperty("conversion.excel.sparse.min.cells", 100000L);
+    private final double sparseMinDensity = ConfigUtil.getDoubleProperty("conversion.excel.sparse.min.density", 0.01);
+    
+    // Choix du moteur de rendu : auto, layout (tableaux iText) ou canvas (dessin direct)
+    private final String rendererMode = ConfigUtil.getProperty("conversion.excel.renderer", "auto").trim();
+    private final long canvasMinCells = ConfigUtil.getLongProperty("conversion.excel.canvas.min.cells", 50000L);
+    
     /**
      * Convertit un fichier Excel (.xlsx ou .xls) en PDF.
      * 
@@ -32,52 +82,207 @@ public class ExcelToPdfService {
      * @throws ConversionException si la conversion échoue
      */
     public void convert(File excelFile, File outputFile) throws ConversionException {
+        convert(excelFile, outputFile, ConversionContext.none());
+    }
+    
+    /**
+     * Convertit sous le contrôle d'un contexte de conversion (annulation, délai).
+     * 
+     * @param excelFile Le fichier Excel source
+     * @param outputFile Le fichier PDF de destination
+     * @param context Le contexte de la conversion
+     * @throws ConversionException si la conversion échoue ou est annulée
+     */
+    public void convert(File excelFile, File outputFile, ConversionContext context) throws ConversionException {
         if (excelFile == null || !excelFile.exists()) {
             throw new ConversionException("Le fichier Excel source n'existe pas");
         }
         
-        try (FileInputStream fis = new FileInputStream(excelFile);
-             Workbook workbook = createWorkbook(excelFile, fis);
-             PdfWriter writer = new PdfWriter(outputFile);
-             PdfDocument pdfDoc = new PdfDocument(writer);
-             Document pdfDocument = new Document(pdfDoc)) {
+        // Plage réellement utilisée de chaque feuille, vérifiée avant toute mise en page
+        List<ExcelUsedRangeScanner.SheetRange> usedRanges = scanUsedRanges(excelFile, context);
+        boolean canvas = useCanvasRenderer(usedRanges);
+        
+        if (isParallel(excelFile, usedRanges)) {
+            convertParallel(excelFile, outputFile, usedRanges, canvas, context);
+            return;
+        }
+        
+        try (PdfWriter writer = context.register(new PdfWriter(outputFile));
+             PdfDocument pdfDoc = new PdfDocument(writer)) {
             
-            logger.debug("Début de la conversion Excel → PDF: {}", excelFile.getName());
+            logger.debug("Début de la conversion Excel → PDF: {} (rendu {})", 
+                        excelFile.getName(), canvas ? "canvas" : "layout");
             
-            // Parcourir toutes les feuilles du classeur
-            int sheetCount = workbook.getNumberOfSheets();
-            for (int i = 0; i < sheetCount; i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-                String sheetName = sheet.getSheetName();
-                
-                // Ajouter un titre pour chaque feuille
-                if (sheetCount > 1) {
-                    pdfDocument.add(new Paragraph(sheetName).setBold().setFontSize(14));
-                    pdfDocument.add(new Paragraph(" ")); // Espacement
+            // Parcourir toutes les feuilles du classeur, ligne par ligne
+            render(pdfDoc, usedRanges, canvas, context, handler -> excelReader.read(excelFile, handler));
+            
+            logger.info("Conversion Excel → PDF réussie: {} → {}", 
+                       excelFile.getName(), outputFile.getName());
+            
+        } catch (IOException e) {
+            logger.error("Erreur lors de la conversion Excel → PDF", e);
+            throw new ConversionException("Erreur lors de la conversion Excel → PDF: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Parcourt le classeur sans mise en page pour calculer la plage utilisée de chaque feuille
+     * et rejeter immédiatement les feuilles trop grandes ou trop clairsemées.
+     */
+    private List<ExcelUsedRangeScanner.SheetRange> scanUsedRanges(File excelFile, ConversionContext context) 
+            throws ConversionException {
+        ExcelUsedRangeScanner scanner = new ExcelUsedRangeScanner(maxRows, maxColumns);
+        try {
+            excelReader.read(excelFile, new CancellableHandler(scanner, context));
+        } catch (IOException e) {
+            logger.warn("Classeur rejeté lors de l'analyse: {} - {}", excelFile.getName(), e.getMessage());
+            throw new ConversionException("Erreur lors de la conversion Excel → PDF: " + e.getMessage(), e);
+        }
+        
+        for (ExcelUsedRangeScanner.SheetRange range : scanner.getRanges()) {
+            logger.debug("Feuille {}: {} colonnes, {} lignes, {} cellules non vides", 
+                        range.name(), range.columnCount(), range.lastRow() + 1, range.nonBlankCells());
+            
+            long rangeCells = range.rangeCells();
+            if (rangeCells > maxCells) {
+                throw new ConversionException("La feuille \"" + range.name() + "\" est trop grande: "
+                                              + rangeCells + " cellules (limite: " + maxCells + ")");
+            }
+            if (rangeCells >= sparseMinCells 
+                    && (double) range.nonBlankCells() / rangeCells < sparseMinDensity) {
+                throw new ConversionException("La feuille \"" + range.name() + "\" est trop clairsemée: "
+                                              + range.nonBlankCells() + " cellules remplies sur une plage de "
+                                              + rangeCells + " cellules");
+            }
+        }
+        return scanner.getRanges();
+    }
+    
+    /**
+     * Le rendu canvas n'est retenu en mode auto que pour un classeur assez grand pour que
+     * le gain compte et dont toutes les feuilles peuvent être dessinées sans mise en page :
+     * pas de cellules fusionnées, pas de renvoi à la ligne, colonnes tenant sur la page.
+     */
+    private boolean useCanvasRenderer(List<ExcelUsedRangeScanner.SheetRange> usedRanges) {
+        switch (rendererMode) {
+            case "layout":
+                return false;
+            case "canvas":
+                return true;
+            default:
+                long totalCells = 0;
+                for (ExcelUsedRangeScanner.SheetRange range : usedRanges) {
+                    if (range.isEmpty()) {
+                        continue;
+                    }
+                    if (range.mergedCells() || range.wrappedText() 
+                            || !ExcelCanvasRenderer.fitsPage(range.columnChars())) {
+                        return false;
+                    }
+                    totalCells += range.rangeCells();
                 }
+                return totalCells >= canvasMinCells;
+        }
+    }
+    
+    /**
+     * Source des lignes à rendre : le classeur entier ou une seule feuille.
+     */
+    @FunctionalInterface
+    private interface SheetSource {
+        void read(ExcelEventReader.SheetHandler handler) throws IOException;
+    }
+    
+    /**
+     * Rend les feuilles lues depuis la source dans le PdfDocument, avec le moteur choisi.
+     */
+    private void render(PdfDocument pdfDoc, List<ExcelUsedRangeScanner.SheetRange> usedRanges, 
+                        boolean canvas, ConversionContext context, SheetSource source) throws IOException {
+        if (canvas) {
+            source.read(new CancellableHandler(new ExcelCanvasRenderer(pdfDoc, usedRanges,
+                    FontCache.createFont(StandardFonts.HELVETICA),
+                    FontCache.createFont(StandardFonts.HELVETICA_BOLD)), context));
+        } else {
+            try (Document pdfDocument = new Document(pdfDoc)) {
+                pdfDocument.setFont(FontCache.createFont(StandardFonts.HELVETICA));
+                source.read(new CancellableHandler(new SheetTableRenderer(pdfDocument, usedRanges, flushRows), context));
+            }
+        }
+    }
+    
+    /**
+     * Indique si le classeur a assez de feuilles pour être rendu en parallèle.
+     */
+    private boolean isParallel(File excelFile, List<ExcelUsedRangeScanner.SheetRange> usedRanges) {
+        // Un .xls est un flux BIFF unique : le relire pour chaque feuille coûte plus que le rendu
+        return PARALLEL_ENABLED && PARALLELISM > 1 && usedRanges.size() >= PARALLEL_MIN_SHEETS
+            && excelFile.getName().toLowerCase().endsWith(".xlsx");
+    }
+    
+    /**
+     * Rend chaque feuille dans son propre PDF temporaire sur le pool partagé, puis les fusionne
+     * dans l'ordre des feuilles au fur et à mesure qu'elles sont prêtes. Au plus PARALLELISM
+     * feuilles sont en cours de rendu pour une même conversion ; le classeur est ouvert une fois
+     * et ses tables partagées servent à toutes les feuilles. Un signet par feuille pointe sur sa première page et la numérotation
+     * des pages est continue sur tout le document.
+     */
+    private void convertParallel(File excelFile, File outputFile,
+                                 List<ExcelUsedRangeScanner.SheetRange> usedRanges, boolean canvas,
+                                 ConversionContext context) throws ConversionException {
+        int sheetCount = usedRanges.size();
+        Deque<ForkJoinTask<File>> inFlight = new ArrayDeque<>();
+        int nextSheet = 0;
+        
+        logger.debug("Début de la conversion Excel → PDF: {} ({} feuilles en parallèle, rendu {})", 
+                    excelFile.getName(), sheetCount, canvas ? "canvas" : "layout");
+        
+        try (ExcelEventReader.XlsxWorkbook workbook = context.register(excelReader.openXlsx(excelFile));
+             PdfWriter writer = context.register(new PdfWriter(outputFile));
+             PdfDocument pdfDoc = new PdfDocument(writer)) {
+            
+            PdfMerger merger = new PdfMerger(pdfDoc, new PdfMergerProperties().setMergeTags(false).setMergeOutlines(false));
+            PdfOutline outlines = pdfDoc.getOutlines(false);
+            
+            try {
+                for (int sheet = 0; sheet < sheetCount; sheet++) {
+                    while (nextSheet < sheetCount && inFlight.size() < PARALLELISM) {
+                        int sheetIndex = nextSheet;
+                        inFlight.addLast(sheetPool.submit(() -> renderSheet(workbook, sheetIndex, usedRanges, canvas, context)));
+                        nextSheet++;
+                    }
                 
-                // Créer un tableau PDF pour cette feuille
-                int maxColumns = getMaxColumns(sheet);
-                if (maxColumns > 0) {
-                    Table table = new Table(maxColumns);
-                    
-                    // Parcourir les lignes de la feuille
-                    for (Row row : sheet) {
-                        for (int col = 0; col < maxColumns; col++) {
-                            org.apache.poi.ss.usermodel.Cell excelCell = row.getCell(col);
-                            String cellValue = getCellValueAsString(excelCell);
-                            table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(cellValue != null ? cellValue : "")));
+                    File sheetPdf = inFlight.removeFirst().get();
+                    try (PdfDocument source = new PdfDocument(new PdfReader(sheetPdf))) {
+                        int firstPage = pdfDoc.getNumberOfPages() + 1;
+                        merger.merge(source, 1, source.getNumberOfPages());
+                        if (firstPage == 1) {
+                            pdfDoc.getPage(1).setPageLabel(PageLabelNumberingStyle.DECIMAL_ARABIC_NUMERALS, null);
+                        }
+                        outlines.addOutline(usedRanges.get(sheet).name())
+                            .addDestination(PdfExplicitDestination.createFit(pdfDoc.getPage(firstPage)));
+                        // Les pages fusionnées sont écrites tout de suite dans le PDF final
+                        for (int page = firstPage; page <= pdfDoc.getNumberOfPages(); page++) {
+                            pdfDoc.getPage(page).flush();
                         }
+                    } finally {
+                        Files.deleteIfExists(sheetPdf.toPath());
                     }
-                    
-                    pdfDocument.add(table);
-                    pdfDocument.add(new Paragraph(" ")); // Espacement entre les feuilles
                 }
+            } finally {
+                // Avant la fermeture du classeur encore lu par les tâches en cours
+                discard(inFlight);
             }
             
             logger.info("Conversion Excel → PDF réussie: {} → {}", 
                        excelFile.getName(), outputFile.getName());
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Conversion Excel → PDF interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            logger.error("Erreur lors de la conversion Excel → PDF", cause);
+            throw new ConversionException("Erreur lors de la conversion Excel → PDF: " + cause.getMessage(), cause);
         } catch (IOException e) {
             logger.error("Erreur lors de la conversion Excel → PDF", e);
             throw new ConversionException("Erreur lors de la conversion Excel → PDF: " + e.getMessage(), e);
@@ -85,72 +290,178 @@ public class ExcelToPdfService {
     }
     
     /**
-     * Crée un Workbook selon le type de fichier Excel.
+     * Rend une feuille dans un PDF temporaire, supprimé en cas d'échec.
      */
-    private Workbook createWorkbook(File excelFile, FileInputStream fis) throws IOException {
-        String filename = excelFile.getName().toLowerCase();
-        if (filename.endsWith(".xlsx")) {
-            return new XSSFWorkbook(fis);
-        } else if (filename.endsWith(".xls")) {
-            return new HSSFWorkbook(fis);
-        } else {
-            throw new IOException("Format Excel non supporté: " + filename);
+    private File renderSheet(ExcelEventReader.XlsxWorkbook workbook, int sheetIndex, 
+                             List<ExcelUsedRangeScanner.SheetRange> usedRanges, boolean canvas,
+                             ConversionContext context) throws IOException {
+        File sheetPdf = Files.createTempFile("excel-sheet-" + sheetIndex + "-", ".pdf").toFile();
+        try (PdfWriter writer = context.register(new PdfWriter(sheetPdf));
+             PdfDocument pdfDoc = new PdfDocument(writer)) {
+            render(pdfDoc, usedRanges, canvas, context, handler -> workbook.readSheet(sheetIndex, handler));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(sheetPdf.toPath());
+            throw e;
         }
+        return sheetPdf;
     }
     
     /**
-     * Détermine le nombre maximum de colonnes dans une feuille.
+     * Après un échec : annule les feuilles pas encore commencées et supprime les PDF
+     * temporaires de celles qui étaient déjà en cours de rendu.
      */
-    private int getMaxColumns(Sheet sheet) {
-        int maxColumns = 0;
-        for (Row row : sheet) {
-            if (row != null) {
-                int lastCellNum = row.getLastCellNum();
-                if (lastCellNum > maxColumns) {
-                    maxColumns = lastCellNum;
-                }
+    private void discard(Deque<ForkJoinTask<File>> inFlight) {
+        for (ForkJoinTask<File> task : inFlight) {
+            if (task.cancel(false)) {
+                continue;
             }
+            try {
+                Files.deleteIfExists(task.join().toPath());
+            } catch (IOException | RuntimeException e) {
+                logger.debug("PDF temporaire de feuille non supprimé: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Transmet les événements du lecteur Excel en vérifiant l'annulation de la conversion
+     * à chaque feuille et à chaque ligne.
+     */
+    private static class CancellableHandler implements ExcelEventReader.SheetHandler {
+        
+        private final ExcelEventReader.SheetHandler delegate;
+        private final ConversionContext context;
+        
+        CancellableHandler(ExcelEventReader.SheetHandler delegate, ConversionContext context) {
+            this.delegate = delegate;
+            this.context = context;
+        }
+        
+        @Override
+        public void startWorkbook(List<String> sheetNames) throws IOException {
+            delegate.startWorkbook(sheetNames);
+        }
+        
+        @Override
+        public void startSheet(int sheetIndex, String sheetName, int columnCount) throws IOException {
+            context.checkCancelled();
+            delegate.startSheet(sheetIndex, sheetName, columnCount);
+        }
+        
+        @Override
+        public void row(int rowIndex, String[] values) throws IOException {
+            context.checkCancelled();
+            delegate.row(rowIndex, values);
+        }
+        
+        @Override
+        public void sheetStyle(boolean mergedCells, boolean wrappedText) throws IOException {
+            delegate.sheetStyle(mergedCells, wrappedText);
+        }
+        
+        @Override
+        public void endSheet() throws IOException {
+            delegate.endSheet();
         }
-        return maxColumns;
     }
     
     /**
-     * Extrait la valeur d'une cellule Excel sous forme de chaîne.
+     * Construit un tableau PDF par feuille à partir des lignes lues en flux.
+     * Le tableau est en mode "large table" : il est ajouté au document dès la première ligne
+     * (répétée en en-tête sur chaque page) puis vidé vers le PdfDocument tous les
+     * conversion.excel.flush.rows lignes, si bien que seul le lot courant reste en mémoire.
+     * Seule la plage utilisée de la feuille est rendue : colonnes et lignes vides de fin sont ignorées.
      */
-    private String getCellValueAsString(org.apache.poi.ss.usermodel.Cell excelCell) {
-        if (excelCell == null) {
-            return "";
+    private static class SheetTableRenderer implements ExcelEventReader.SheetHandler {
+        
+        private final Document pdfDocument;
+        private final List<ExcelUsedRangeScanner.SheetRange> usedRanges;
+        private final int flushRows;
+        private boolean multipleSheets;
+        private int maxColumns;
+        private int lastRow;
+        private Table table;
+        private int rowsSinceFlush;
+        
+        SheetTableRenderer(Document pdfDocument, List<ExcelUsedRangeScanner.SheetRange> usedRanges, 
+                           int flushRows) {
+            this.pdfDocument = pdfDocument;
+            this.usedRanges = usedRanges;
+            this.flushRows = flushRows;
+        }
+        
+        @Override
+        public void startWorkbook(List<String> sheetNames) {
+            multipleSheets = sheetNames.size() > 1;
+        }
+        
+        @Override
+        public void startSheet(int sheetIndex, String sheetName, int columnCount) {
+            ExcelUsedRangeScanner.SheetRange range = usedRanges.get(sheetIndex);
+            this.maxColumns = range.columnCount();
+            this.lastRow = range.lastRow();
+            
+            // Ajouter un titre pour chaque feuille
+            if (multipleSheets) {
+                pdfDocument.add(new Paragraph(sheetName).setBold().setFontSize(14));
+                pdfDocument.add(new Paragraph(" ")); // Espacement
+            }
+        }
+        
+        @Override
+        public void row(int rowIndex, String[] values) {
+            if (maxColumns > 0 && rowIndex <= lastRow) {
+                addRow(values);
+            }
+        }
+        
+        @Override
+        public void endSheet() {
+            if (table != null) {
+                table.complete();
+                pdfDocument.add(new Paragraph(" ")); // Espacement entre les feuilles
+            }
+            table = null;
         }
         
-        switch (excelCell.getCellType()) {
-            case STRING:
-                return excelCell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(excelCell)) {
-                    return excelCell.getDateCellValue().toString();
+        private void addRow(String[] values) {
+            boolean header = table == null;
+            if (header) {
+                table = new Table(maxColumns, true);
+                rowsSinceFlush = 0;
+            }
+            
+            for (int col = 0; col < maxColumns; col++) {
+                String cellValue = col < values.length ? values[col] : null;
+                Cell cell = new Cell().add(new Paragraph(cellValue != null ? cellValue : ""));
+                if (header) {
+                    table.addHeaderCell(cell);
                 } else {
-                    // Éviter la notation scientifique pour les grands nombres
-                    double numValue = excelCell.getNumericCellValue();
-                    if (numValue == (long) numValue) {
-                        return String.valueOf((long) numValue);
-                    } else {
-                        return String.valueOf(numValue);
-                    }
-                }
-            case BOOLEAN:
-                return String.valueOf(excelCell.getBooleanCellValue());
-            case FORMULA:
-                try {
-                    // Récupérer la valeur calculée
-                    DataFormatter formatter = new DataFormatter();
-                    return formatter.formatCellValue(excelCell);
-                } catch (Exception e) {
-                    return excelCell.getCellFormula();
+                    table.addCell(cell);
                 }
-            case BLANK:
-                return "";
-            default:
-                return "";
+            }
+            
+            if (header) {
+                // La première ligne sert d'en-tête répété sur chaque page
+                pdfDocument.add(table);
+            } else if (++rowsSinceFlush >= flushRows) {
+                table.flush();
+                rowsSinceFlush = 0;
+            }
+        }
+    }
+    
+    /**
+     * Arrête le pool des feuilles, à l'arrêt de l'application (ConversionEngineInitializer).
+     */
+    public static void shutdown() {
+        sheetPool.shutdownNow();
+        try {
+            if (!sheetPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Pool de rendu des feuilles non terminé après 5s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
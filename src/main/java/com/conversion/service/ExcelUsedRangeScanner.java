@@ -0,0 +1,131 @@
+package com.Ash_Conversion.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calcule la plage réellement utilisée de chaque feuille à partir des cellules non vides
+ * (les cellules seulement formatées sont ignorées). La lecture s'arrête dès qu'une valeur
+ * dépasse les limites de lignes ou de colonnes configurées.
+ * Relève aussi la longueur maximale du texte de chaque colonne et la présence de cellules
+ * fusionnées ou à renvoi à la ligne, utilisées pour choisir le moteur de rendu.
+ */
+public class ExcelUsedRangeScanner implements ExcelEventReader.SheetHandler {
+
+    /**
+     * Plage utilisée d'une feuille.
+     *
+     * @param name Nom de la feuille
+     * @param columnCount Nombre de colonnes jusqu'à la dernière valeur non vide (0 si feuille vide)
+     * @param lastRow Index de la dernière ligne contenant une valeur (-1 si feuille vide)
+     * @param nonBlankCells Nombre de cellules non vides
+     * @param columnChars Longueur maximale du texte de chaque colonne, en caractères
+     * @param mergedCells true si la feuille contient des cellules fusionnées
+     * @param wrappedText true si une cellule non vide a le renvoi à la ligne activé
+     */
+    public record SheetRange(String name, int columnCount, int lastRow, long nonBlankCells,
+                             int[] columnChars, boolean mergedCells, boolean wrappedText) {
+
+        public boolean isEmpty() {
+            return nonBlankCells == 0;
+        }
+
+        /**
+         * Nombre de cellules de la plage utilisée (lignes × colonnes).
+         */
+        public long rangeCells() {
+            return (long) (lastRow + 1) * columnCount;
+        }
+    }
+
+    private final int maxRows;
+    private final int maxColumns;
+    private final List<SheetRange> ranges = new ArrayList<>();
+
+    private String sheetName;
+    private int columnCount;
+    private int lastRow;
+    private long nonBlankCells;
+    private int[] columnChars;
+    private boolean mergedCells;
+    private boolean wrappedText;
+
+    /**
+     * @param maxRows Nombre maximal de lignes utilisées par feuille
+     * @param maxColumns Nombre maximal de colonnes utilisées par feuille
+     */
+    public ExcelUsedRangeScanner(int maxRows, int maxColumns) {
+        this.maxRows = maxRows;
+        this.maxColumns = maxColumns;
+    }
+
+    @Override
+    public void startSheet(int sheetIndex, String sheetName, int declaredColumns) {
+        this.sheetName = sheetName;
+        this.columnCount = 0;
+        this.lastRow = -1;
+        this.nonBlankCells = 0;
+        this.columnChars = new int[0];
+        this.mergedCells = false;
+        this.wrappedText = false;
+    }
+
+    @Override
+    public void row(int rowIndex, String[] values) throws IOException {
+        int lastColumn = -1;
+        for (int col = 0; col < values.length; col++) {
+            if (!isBlank(values[col])) {
+                lastColumn = col;
+                nonBlankCells++;
+            }
+        }
+        if (lastColumn < 0) {
+            return;
+        }
+
+        if (rowIndex >= maxRows) {
+            throw new IOException("La feuille \"" + sheetName + "\" dépasse la limite de "
+                                  + maxRows + " lignes");
+        }
+        if (lastColumn >= maxColumns) {
+            throw new IOException("La feuille \"" + sheetName + "\" contient une valeur en colonne "
+                                  + (lastColumn + 1) + ", au-delà de la limite de " + maxColumns + " colonnes");
+        }
+        lastRow = rowIndex;
+        columnCount = Math.max(columnCount, lastColumn + 1);
+
+        if (columnChars.length <= lastColumn) {
+            columnChars = Arrays.copyOf(columnChars, Math.max(lastColumn + 1, columnChars.length * 2));
+        }
+        for (int col = 0; col <= lastColumn; col++) {
+            if (values[col] != null && values[col].length() > columnChars[col]) {
+                columnChars[col] = values[col].length();
+            }
+        }
+    }
+
+    @Override
+    public void sheetStyle(boolean mergedCells, boolean wrappedText) {
+        this.mergedCells = mergedCells;
+        this.wrappedText = wrappedText;
+    }
+
+    @Override
+    public void endSheet() {
+        ranges.add(new SheetRange(sheetName, columnCount, lastRow, nonBlankCells,
+                                  Arrays.copyOf(columnChars, columnCount), mergedCells, wrappedText));
+    }
+
+    /**
+     * Plages utilisées, dans l'ordre des feuilles.
+     */
+    public List<SheetRange> getRanges() {
+        return ranges;
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
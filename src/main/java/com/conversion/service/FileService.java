@@ -1,5 +1,6 @@
 package com.Ash_Conversion.service;
 
+import com.Ash_Conversion.config.ConversionEngineInitializer;
 import com.Ash_Conversion.exception.FileUploadException;
 import com.Ash_Conversion.model.entity.FileJob;
 import com.Ash_Conversion.model.entity.User;
@@ -127,6 +128,10 @@ public class FileService {
             throw new FileUploadException("Vous n'êtes pas autorisé à supprimer ce fichier");
         }
         
+        // Arrêter une conversion en file ou en cours (sur n'importe quel nœud) : elle supprime
+        // sa sortie partielle. Annulation conditionnelle en base, sans effet sur un autre statut.
+        ConversionEngineInitializer.getConversionService().cancelConversion(fileId);
+        
         // Supprimer le fichier physique
         storageService.deleteFile(fileJob.getFilePath());
         if (fileJob.getOutputPath() != null) {
@@ -0,0 +1,293 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.model.entity.FileJob;
+import com.Ash_Conversion.model.enums.ConversionType;
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.MetricsRegistry;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Budget de tas des conversions : une conversion ne démarre que si son besoin estimé tient dans
+ * ce qui reste du budget (conversion.memory.budget.mb, par défaut conversion.memory.budget.heap.percent
+ * du tas maximal). Sinon elle attend, dans l'ordre d'arrivée, qu'une conversion en cours rende sa part.
+ * <p>
+ * Le besoin est estimé en Mo : conversion.memory.base.mb, plus la taille du fichier multipliée par
+ * le facteur du type (conversion.memory.size.factors, Type:facteur), ou, si c'est plus, le nombre
+ * de pages (PDF) ou de cellules (.xlsx) lu sans parcourir le document
+ * (conversion.memory.page.mb, conversion.memory.kcells.mb). Une estimation au-delà du budget est
+ * ramenée au budget : la conversion s'exécute alors seule.
+ * <p>
+ * Étalonnage : le tas occupé après chaque GC (toutes générations, notifications des collecteurs)
+ * est relevé pour les conversions en cours. Sa croissance entre le début d'une conversion et son pic,
+ * au prorata de sa part des réservations, donne son pic mesuré. Une conversion sans GC ou sans
+ * croissance n'est pas mesurée. Le rapport mesuré / besoin brut, lissé par type, corrige les
+ * estimations suivantes.
+ * Estimations et mesures sont publiées côte à côte (conversion.memory.TYPE.estimated.mb, .measured.mb).
+ */
+class MemoryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryBudget.class);
+
+    private static final String DEFAULT_FACTORS = "PDF_TO_WORD:6,PDF_TO_EXCEL:6,WORD_TO_PDF:10,EXCEL_TO_PDF:4";
+    private static final long MB = 1024 * 1024;
+    // Poids d'une nouvelle mesure dans le facteur d'étalonnage
+    private static final double CALIBRATION_WEIGHT = 0.2;
+    // Asymétrique : une sous-estimation coûte un OutOfMemoryError, une surestimation de l'attente
+    private static final double MIN_CALIBRATION = 0.5;
+    private static final double MAX_CALIBRATION = 10;
+
+    private final int budgetMb;
+    private final Semaphore permits;
+    private final long baseMb;
+    private final double pageMb;
+    private final double kcellsMb;
+    private final Map<ConversionType, Double> sizeFactors = new EnumMap<>(ConversionType.class);
+    private final Map<ConversionType, Double> calibration = new ConcurrentHashMap<>();
+    private final Set<Reservation> reservations = ConcurrentHashMap.newKeySet();
+    private final ConversionCostEstimator documentReader;
+    // Tas occupé après le dernier GC, toutes générations : la mémoire réellement retenue
+    private volatile long heapAfterGc;
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGarbageCollection;
+
+    MemoryBudget(ConversionCostEstimator documentReader) {
+        this.documentReader = documentReader;
+        long configured = ConfigUtil.getLongProperty("conversion.memory.budget.mb", 0);
+        double heapPercent = ConfigUtil.getDoubleProperty("conversion.memory.budget.heap.percent", 60);
+        long budget = configured > 0 ? configured
+            : (long) (Runtime.getRuntime().maxMemory() / MB * Math.min(100, Math.max(1, heapPercent)) / 100);
+        this.budgetMb = (int) Math.max(1, Math.min(budget, Integer.MAX_VALUE));
+        // Équitable : une grosse conversion en attente n'est pas doublée indéfiniment par les petites
+        this.permits = new Semaphore(budgetMb, true);
+        this.baseMb = Math.max(0, ConfigUtil.getLongProperty("conversion.memory.base.mb", 16));
+        this.pageMb = ConfigUtil.getDoubleProperty("conversion.memory.page.mb", 0.5);
+        this.kcellsMb = ConfigUtil.getDoubleProperty("conversion.memory.kcells.mb", 0.2);
+
+        for (String entry : ConfigUtil.getProperty("conversion.memory.size.factors", DEFAULT_FACTORS).split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                sizeFactors.put(ConversionType.valueOf(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Entrée ignorée dans conversion.memory.size.factors: {}", entry);
+            }
+        }
+
+        MetricsRegistry.registerGauge("conversion.memory.budget.mb", () -> budgetMb);
+        MetricsRegistry.registerGauge("conversion.memory.reserved.mb", () -> budgetMb - permits.availablePermits());
+        MetricsRegistry.registerGauge("conversion.memory.waiting", permits::getQueueLength);
+        for (ConversionType type : ConversionType.values()) {
+            MetricsRegistry.registerGauge("conversion.memory." + type + ".calibration.percent",
+                () -> Math.round(calibration.getOrDefault(type, 1.0) * 100));
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        // Avant le premier GC : tas utilisé, objets morts compris
+        heapAfterGc = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(gcListener, null, null);
+                gcEmitters.add(emitter);
+            }
+        }
+        logger.info("Budget mémoire des conversions: {} Mo", budgetMb);
+    }
+
+    /**
+     * Besoin de tas estimé d'une conversion, en Mo, étalonnage compris (au moins 1, au plus le budget).
+     *
+     * @param fileJob Le FileJob, avec son type de conversion
+     * @param source Le fichier source, lu pour ses métadonnées
+     */
+    int estimate(FileJob fileJob, File source) {
+        return corrected(fileJob.getConversionType(), rawEstimate(fileJob, source));
+    }
+
+    private int corrected(ConversionType type, double rawMb) {
+        double corrected = rawMb * calibration.getOrDefault(type, 1.0);
+        return (int) Math.max(1, Math.min(budgetMb, Math.ceil(corrected)));
+    }
+
+    private double rawEstimate(FileJob fileJob, File source) {
+        ConversionType type = fileJob.getConversionType();
+        double sizeMb = fileJob.getFileSize() != null ? (double) fileJob.getFileSize() / MB : source.length() / (double) MB;
+        double need = sizeMb * sizeFactors.getOrDefault(type, 1.0);
+        try {
+            long units = documentReader.countUnits(type, source);
+            double counted = switch (type) {
+                case PDF_TO_WORD, PDF_TO_EXCEL -> units * pageMb;
+                case EXCEL_TO_PDF -> units / 1000.0 * kcellsMb;
+                case WORD_TO_PDF -> 0;
+            };
+            need = Math.max(need, counted);
+        } catch (IOException | RuntimeException e) {
+            // Métadonnées illisibles : la conversion le signalera, la taille suffit pour l'estimation
+            logger.debug("Besoin mémoire de FileJob {} estimé par la taille: {}", fileJob.getId(), e.getMessage());
+        }
+        return baseMb + need;
+    }
+
+    /**
+     * Réserve la part d'une conversion, en attendant qu'elle tienne dans le budget.
+     * L'attente est interrompue par l'annulation de la conversion.
+     *
+     * @param timeoutNanos Attente maximale
+     * @return La réservation, à rendre par {@link #release(Reservation)}, ou null si la part
+     *         n'a pas été obtenue dans le délai
+     */
+    Reservation acquire(FileJob fileJob, File source, long timeoutNanos) throws InterruptedIOException {
+        ConversionType type = fileJob.getConversionType();
+        double rawMb = rawEstimate(fileJob, source);
+        int estimateMb = corrected(type, rawMb);
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(estimateMb, Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Conversion interrompue en attente de mémoire");
+        }
+        MetricsRegistry.recordTime("conversion.memory.wait", (System.nanoTime() - start) / 1_000_000);
+
+        Reservation reservation = new Reservation(fileJob.getId(), type, rawMb, estimateMb, heapAfterGc);
+        reservations.add(reservation);
+        return reservation;
+    }
+
+    /**
+     * Rend la part d'une conversion terminée et, si un GC a eu lieu pendant la conversion,
+     * étalonne son type sur le pic mesuré.
+     */
+    void release(Reservation reservation) {
+        reservations.remove(reservation);
+        permits.release(reservation.estimateMb);
+
+        long growth;
+        int peakReservedMb;
+        synchronized (reservation) {
+            growth = reservation.peakHeap - reservation.startHeap;
+            peakReservedMb = reservation.peakReservedMb;
+            if (reservation.collections == 0 || growth < MB) {
+                // Aucun GC pendant la conversion, ou croissance du tas dans le bruit : pas de mesure
+                MetricsRegistry.increment("conversion.memory." + reservation.type + ".unmeasured");
+                return;
+            }
+        }
+        double share = (double) reservation.estimateMb / Math.max(reservation.estimateMb, peakReservedMb);
+        double measuredMb = (double) growth / MB * share;
+
+        String metric = "conversion.memory." + reservation.type;
+        MetricsRegistry.increment(metric + ".samples");
+        MetricsRegistry.add(metric + ".estimated.mb", reservation.estimateMb);
+        MetricsRegistry.add(metric + ".measured.mb", Math.round(measuredMb));
+
+        // Rapport au besoin brut, avant étalonnage et plafonnement au budget
+        double ratio = measuredMb / reservation.rawMb;
+        double next = calibration.compute(reservation.type, (type, previous) -> {
+            double current = previous != null ? previous : 1.0;
+            double smoothed = current + CALIBRATION_WEIGHT * (ratio - current);
+            return Math.min(MAX_CALIBRATION, Math.max(MIN_CALIBRATION, smoothed));
+        });
+
+        logger.debug("FileJob {} ({}): mémoire estimée {} Mo, pic mesuré {} Mo, étalonnage {}", reservation.fileJobId,
+                    reservation.type, reservation.estimateMb, Math.round(measuredMb), String.format("%.2f", next));
+    }
+
+    /**
+     * Tas occupé après un GC (toutes générations) : relevé pour les conversions en cours.
+     */
+    private void onGarbageCollection(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GcInfo gcInfo = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : gcInfo.getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        heapAfterGc = used;
+        int reservedMb = budgetMb - permits.availablePermits();
+        for (Reservation reservation : reservations) {
+            reservation.record(used, reservedMb);
+        }
+    }
+
+    /**
+     * Retire l'écoute des GC (arrêt de l'application) : le listener retiendrait le classloader.
+     */
+    void close() {
+        for (NotificationEmitter emitter : gcEmitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // Déjà retiré
+            }
+        }
+        gcEmitters.clear();
+    }
+
+    /**
+     * Part du budget tenue par une conversion en cours, avec le tas relevé après chaque GC.
+     */
+    static final class Reservation {
+
+        private final Long fileJobId;
+        private final ConversionType type;
+        private final double rawMb;
+        private final int estimateMb;
+        private final long startHeap;
+        private long peakHeap;
+        private int peakReservedMb;
+        private int collections;
+
+        private Reservation(Long fileJobId, ConversionType type, double rawMb, int estimateMb, long startHeap) {
+            this.fileJobId = fileJobId;
+            this.type = type;
+            this.rawMb = rawMb;
+            this.estimateMb = estimateMb;
+            this.startHeap = startHeap;
+            this.peakHeap = startHeap;
+        }
+
+        private synchronized void record(long heap, int reservedMb) {
+            peakHeap = Math.max(peakHeap, heap);
+            peakReservedMb = Math.max(peakReservedMb, reservedMb);
+            collections++;
+        }
+    }
+}
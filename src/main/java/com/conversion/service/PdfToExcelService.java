@@ -1,29 +1,40 @@
 package com.Ash_Conversion.service;
 
 import com.Ash_Conversion.exception.ConversionException;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import com.Ash_Conversion.util.ConfigUtil;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.regex.Pattern;
 
 /**
  * Service pour la conversion PDF → Excel (.xlsx).
- * Utilise PDFBox pour extraire le texte et Apache POI pour créer le XLSX.
+ * Utilise PDFBox pour extraire le texte et un classeur POI SXSSF pour écrire le XLSX :
+ * seules les dernières lignes (fenêtre configurable) restent en mémoire.
  */
 public class PdfToExcelService {
     
     private static final Logger logger = LoggerFactory.getLogger(PdfToExcelService.class);
+    private static final Pattern LINE_PATTERN = Pattern.compile("\\r?\\n");
     private static final Pattern TAB_PATTERN = Pattern.compile("\\t+");
     private static final Pattern SPACE_PATTERN = Pattern.compile("\\s{2,}");
     
+    private static final int MAX_COLUMNS = 20;
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    // Largeur maximale d'une colonne Excel, en caractères
+    private static final int MAX_COLUMN_WIDTH_CHARS = 255;
+    
+    private final PdfTextExtractor textExtractor = new PdfTextExtractor();
+    private final int rowWindow = Math.max(1, ConfigUtil.getIntProperty("conversion.excel.row.window", 100));
+    
     /**
      * Convertit un fichier PDF en Excel (.xlsx).
      * 
@@ -32,66 +43,99 @@ public class PdfToExcelService {
      * @throws ConversionException si la conversion échoue
      */
     public void convert(File pdfFile, File outputFile) throws ConversionException {
+        convert(pdfFile, outputFile, ConversionContext.none());
+    }
+    
+    /**
+     * Convertit sous le contrôle d'un contexte de conversion (annulation, délai).
+     * 
+     * @param pdfFile Le fichier PDF source
+     * @param outputFile Le fichier XLSX de destination
+     * @param context Le contexte de la conversion
+     * @throws ConversionException si la conversion échoue ou est annulée
+     */
+    public void convert(File pdfFile, File outputFile, ConversionContext context) throws ConversionException {
         if (pdfFile == null || !pdfFile.exists()) {
             throw new ConversionException("Le fichier PDF source n'existe pas");
         }
         
-        try (PDDocument document = Loader.loadPDF(pdfFile);
-             Workbook workbook = new XSSFWorkbook();
-             FileOutputStream out = new FileOutputStream(outputFile)) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
             
             logger.debug("Début de la conversion PDF → Excel: {}", pdfFile.getName());
             
-            // Extraire le texte du PDF
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            
             // Créer une feuille Excel
             Sheet sheet = workbook.createSheet("Données");
             
-            // Diviser le texte en lignes
-            String[] lines = text.split("\\r?\\n");
+            // Largeur maximale (en caractères) relevée pour chaque colonne pendant l'écriture
+            int[] columnWidths = new int[MAX_COLUMNS];
+            int[] rowNum = {0};
             
-            int rowNum = 0;
-            for (String line : lines) {
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                
-                Row row = sheet.createRow(rowNum++);
-                
-                // Essayer de détecter des colonnes (tabs ou espaces multiples)
-                String[] cells;
-                if (line.contains("\t")) {
-                    cells = TAB_PATTERN.split(line);
-                } else if (SPACE_PATTERN.matcher(line).find()) {
-                    cells = SPACE_PATTERN.split(line);
-                } else {
-                    cells = new String[]{line};
+            // Extraire le texte page par page et écrire les lignes au fil de l'eau
+            textExtractor.extractPages(pdfFile, context, (pageNumber, text) -> {
+                for (String line : LINE_PATTERN.split(text)) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    
+                    if (rowNum[0] >= MAX_ROWS) {
+                        throw new IOException("Le PDF dépasse le nombre maximal de lignes d'une feuille Excel ("
+                                              + MAX_ROWS + ")");
+                    }
+                    Row row = sheet.createRow(rowNum[0]++);
+                    
+                    // Essayer de détecter des colonnes (tabs ou espaces multiples)
+                    String[] cells;
+                    if (line.contains("\t")) {
+                        cells = TAB_PATTERN.split(line);
+                    } else if (SPACE_PATTERN.matcher(line).find()) {
+                        cells = SPACE_PATTERN.split(line);
+                    } else {
+                        cells = new String[]{line};
+                    }
+                    
+                    int cellNum = 0;
+                    for (String cellValue : cells) {
+                        if (cellNum >= MAX_COLUMNS) break; // Limiter à 20 colonnes
+                        String value = cellValue.trim();
+                        Cell cell = row.createCell(cellNum);
+                        cell.setCellValue(value);
+                        if (value.length() > columnWidths[cellNum]) {
+                            columnWidths[cellNum] = value.length();
+                        }
+                        cellNum++;
+                    }
                 }
-                
-                int cellNum = 0;
-                for (String cellValue : cells) {
-                    if (cellNum >= 20) break; // Limiter à 20 colonnes
-                    Cell cell = row.createCell(cellNum++);
-                    cell.setCellValue(cellValue.trim());
-                }
-            }
+            });
             
-            // Auto-size les colonnes
-            for (int i = 0; i < 20; i++) {
-                sheet.autoSizeColumn(i);
+            // Largeur des colonnes à partir des longueurs relevées (pas de seconde passe de mesure)
+            for (int i = 0; i < MAX_COLUMNS; i++) {
+                if (columnWidths[i] > 0) {
+                    int widthChars = Math.min(columnWidths[i] + 2, MAX_COLUMN_WIDTH_CHARS);
+                    sheet.setColumnWidth(i, widthChars * 256);
+                }
             }
             
             // Sauvegarder le fichier Excel
+            context.checkCancelled();
             workbook.write(out);
             
-            logger.info("Conversion PDF → Excel réussie: {} → {}", 
-                       pdfFile.getName(), outputFile.getName());
+            logger.info("Conversion PDF → Excel réussie: {} → {} ({} lignes)", 
+                       pdfFile.getName(), outputFile.getName(), rowNum[0]);
             
         } catch (IOException e) {
             logger.error("Erreur lors de la conversion PDF → Excel", e);
             throw new ConversionException("Erreur lors de la conversion PDF → Excel: " + e.getMessage(), e);
+        } finally {
+            // Supprimer les fichiers temporaires de la fenêtre SXSSF
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                logger.warn("Erreur lors de la fermeture du classeur: {}", e.getMessage());
+            }
         }
     }
 }
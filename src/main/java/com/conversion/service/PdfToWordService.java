@@ -1,58 +1,68 @@
 package com.Ash_Conversion.service;
 
 import com.Ash_Conversion.exception.ConversionException;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
+import com.Ash_Conversion.util.DocxStreamWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.regex.Pattern;
 
 /**
  * Service pour la conversion PDF → Word (.docx).
- * Utilise PDFBox pour extraire le texte et Apache POI pour créer le DOCX.
+ * Utilise PDFBox pour extraire le texte et écrit le DOCX en flux,
+ * page par page, sans construire le document en mémoire.
  */
 public class PdfToWordService {
     
     private static final Logger logger = LoggerFactory.getLogger(PdfToWordService.class);
+    private static final Pattern LINE_PATTERN = Pattern.compile("\\r?\\n");
+    
+    private final PdfTextExtractor textExtractor = new PdfTextExtractor();
     
     /**
      * Convertit un fichier PDF en Word (.docx).
+     * Chaque ligne extraite devient un paragraphe et chaque page PDF se termine par un saut de page.
      * 
      * @param pdfFile Le fichier PDF source
      * @param outputFile Le fichier DOCX de destination
      * @throws ConversionException si la conversion échoue
      */
     public void convert(File pdfFile, File outputFile) throws ConversionException {
+        convert(pdfFile, outputFile, ConversionContext.none());
+    }
+    
+    /**
+     * Convertit sous le contrôle d'un contexte de conversion (annulation, délai).
+     * 
+     * @param pdfFile Le fichier PDF source
+     * @param outputFile Le fichier DOCX de destination
+     * @param context Le contexte de la conversion
+     * @throws ConversionException si la conversion échoue ou est annulée
+     */
+    public void convert(File pdfFile, File outputFile, ConversionContext context) throws ConversionException {
         if (pdfFile == null || !pdfFile.exists()) {
             throw new ConversionException("Le fichier PDF source n'existe pas");
         }
         
-        try (PDDocument document = Loader.loadPDF(pdfFile);
-             XWPFDocument wordDocument = new XWPFDocument();
-             FileOutputStream out = new FileOutputStream(outputFile)) {
+        try (DocxStreamWriter wordDocument = new DocxStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
             
             logger.debug("Début de la conversion PDF → Word: {}", pdfFile.getName());
             
-            // Extraire le texte du PDF
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            
-            // Créer le document Word avec le texte extrait
-            XWPFParagraph paragraph = wordDocument.createParagraph();
-            XWPFRun run = paragraph.createRun();
-            run.setText(text);
-            run.setFontSize(12);
-            
-            // Sauvegarder le document Word
-            wordDocument.write(out);
+            // Extraire le texte page par page (en parallèle pour les gros documents)
+            // et l'écrire au fil de l'eau dans le document Word
+            textExtractor.extractPages(pdfFile, context, (pageNumber, text) -> {
+                if (pageNumber > 1) {
+                    wordDocument.writePageBreak();
+                }
+                for (String line : LINE_PATTERN.split(text)) {
+                    wordDocument.writeParagraph(line);
+                }
+            });
             
             logger.info("Conversion PDF → Word réussie: {} → {}", 
                        pdfFile.getName(), outputFile.getName());
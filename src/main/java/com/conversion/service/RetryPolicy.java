@@ -0,0 +1,94 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.util.ConfigUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Politique de nouvel essai des conversions en échec, par classe d'exception.
+ * conversion.retry.policy associe une classe d'exception à un nombre de nouveaux essais
+ * (Classe:n, séparés par des virgules). L'exception et ses causes sont comparées aux classes
+ * configurées : la plus proche l'emporte. Une erreur non listée (fichier corrompu, format
+ * non supporté) n'est pas réessayée.
+ * Le délai avant le nouvel essai double à chaque fois (conversion.retry.base.seconds,
+ * plafonné à conversion.retry.max.seconds), avec une part aléatoire pour étaler les reprises.
+ */
+public class RetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private static final String DEFAULT_POLICY =
+        "java.nio.file.FileSystemException:3," +
+        "java.sql.SQLTransientException:5," +
+        "java.sql.SQLRecoverableException:3," +
+        "jakarta.persistence.PessimisticLockException:5," +
+        "jakarta.persistence.LockTimeoutException:5," +
+        "jakarta.persistence.QueryTimeoutException:3";
+
+    private final Map<Class<?>, Integer> retriesByType = new LinkedHashMap<>();
+    private final long baseSeconds;
+    private final long maxSeconds;
+
+    public RetryPolicy() {
+        this.baseSeconds = Math.max(1, ConfigUtil.getLongProperty("conversion.retry.base.seconds", 10));
+        this.maxSeconds = Math.max(baseSeconds, ConfigUtil.getLongProperty("conversion.retry.max.seconds", 600));
+
+        for (String entry : ConfigUtil.getProperty("conversion.retry.policy", DEFAULT_POLICY).split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                retriesByType.put(Class.forName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (ClassNotFoundException | NumberFormatException e) {
+                logger.warn("Entrée ignorée dans conversion.retry.policy: {}", entry);
+            }
+        }
+    }
+
+    /**
+     * Nombre de nouveaux essais autorisés pour une erreur.
+     *
+     * @param error L'erreur de conversion
+     * @return 0 si l'erreur n'est pas transitoire
+     */
+    public int maxRetries(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            Integer retries = closestMatch(t.getClass());
+            if (retries != null) {
+                return retries;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Délai avant le nouvel essai : base × 2^(retry-1) plafonné, tiré entre la moitié et la totalité.
+     *
+     * @param retry Le numéro du nouvel essai (1 pour le premier)
+     * @return Le délai en secondes
+     */
+    public long backoffSeconds(int retry) {
+        long delay = baseSeconds << Math.min(Math.max(retry - 1, 0), 20);
+        delay = Math.min(delay, maxSeconds);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * Classe configurée la plus proche dans la hiérarchie de type.
+     */
+    private Integer closestMatch(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Integer retries = retriesByType.get(c);
+            if (retries != null) {
+                return retries;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.Ash_Conversion.service;
+
+import com.Ash_Conversion.model.enums.ConversionStatus;
+
+/**
+ * Résultat d'une demande de conversion.
+ * ACCEPTED : la conversion a été mise en file par cette demande.
+ * DUPLICATE : une conversion de ce fichier est déjà en file ou en cours, ou la demande rejoue
+ * une clé d'idempotence déjà utilisée ; status est alors le statut actuel du fichier.
+ * REJECTED : la file est pleine (contrôle d'admission) ; la demande peut être renouvelée
+ * après retryAfterSeconds.
+ *
+ * @param outcome Le résultat de la demande
+ * @param status Le statut du FileJob après la demande
+ * @param retryAfterSeconds Le délai conseillé avant un nouvel essai (REJECTED uniquement, 0 sinon)
+ */
+public record SubmissionResult(Outcome outcome, ConversionStatus status, long retryAfterSeconds) {
+
+    public enum Outcome {
+        ACCEPTED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    static SubmissionResult accepted() {
+        return new SubmissionResult(Outcome.ACCEPTED, ConversionStatus.QUEUED, 0);
+    }
+
+    static SubmissionResult duplicate(ConversionStatus status) {
+        return new SubmissionResult(Outcome.DUPLICATE, status, 0);
+    }
+
+    static SubmissionResult rejected(ConversionStatus status, long retryAfterSeconds) {
+        return new SubmissionResult(Outcome.REJECTED, status, retryAfterSeconds);
+    }
+
+    public boolean isAccepted() {
+        return outcome == Outcome.ACCEPTED;
+    }
+}
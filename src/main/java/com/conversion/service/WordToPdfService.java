@@ -1,56 +1,72 @@
 package com.Ash_Conversion.service;
 
 import com.Ash_Conversion.exception.ConversionException;
+import com.Ash_Conversion.util.ConfigUtil;
+import com.Ash_Conversion.util.FontCache;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import com.itextpdf.layout.element.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Service pour la conversion Word (.docx) → PDF.
- * Utilise Apache POI pour lire le DOCX et iText 7 pour créer le PDF.
+ * Lit le DOCX en flux (StAX sur word/document.xml, sans modèle objet POI) et crée le PDF
+ * avec iText 7 au fil de la lecture : paragraphes et lignes de tableau sont écrits dès
+ * qu'ils sont lus, la mémoire utilisée ne dépend donc pas de la taille du document.
  */
 public class WordToPdfService {
     
     private static final Logger logger = LoggerFactory.getLogger(WordToPdfService.class);
     
+    private final DocxEventReader docxReader = new DocxEventReader();
+    private final int flushRows = Math.max(1, ConfigUtil.getIntProperty("conversion.word.flush.rows", 200));
+    
     /**
      * Convertit un fichier Word (.docx) en PDF.
-     * 
+     *
      * @param wordFile Le fichier DOCX source
      * @param outputFile Le fichier PDF de destination
      * @throws ConversionException si la conversion échoue
      */
     public void convert(File wordFile, File outputFile) throws ConversionException {
+        convert(wordFile, outputFile, ConversionContext.none());
+    }
+    
+    /**
+     * Convertit sous le contrôle d'un contexte de conversion (annulation, délai).
+     * 
+     * @param wordFile Le fichier DOCX source
+     * @param outputFile Le fichier PDF de destination
+     * @param context Le contexte de la conversion
+     * @throws ConversionException si la conversion échoue ou est annulée
+     */
+    public void convert(File wordFile, File outputFile, ConversionContext context) throws ConversionException {
         if (wordFile == null || !wordFile.exists()) {
             throw new ConversionException("Le fichier Word source n'existe pas");
         }
         
-        try (FileInputStream fis = new FileInputStream(wordFile);
-             XWPFDocument document = new XWPFDocument(fis);
-             PdfWriter writer = new PdfWriter(outputFile);
+        try (PdfWriter writer = context.register(new PdfWriter(outputFile));
              PdfDocument pdfDoc = new PdfDocument(writer);
              Document pdfDocument = new Document(pdfDoc)) {
             
             logger.debug("Début de la conversion Word → PDF: {}", wordFile.getName());
             
-            // Extraire le texte du document Word
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                String text = paragraph.getText();
-                if (text != null && !text.trim().isEmpty()) {
-                    pdfDocument.add(new Paragraph(text));
-                }
-            }
+            // Police créée à partir du programme partagé, analysé une seule fois par JVM
+            pdfDocument.setFont(FontCache.createFont(StandardFonts.HELVETICA));
+            
+            // Paragraphes et tableaux écrits dans l'ordre du document
+            docxReader.read(wordFile, new BodyRenderer(pdfDocument, flushRows, context));
             
-            logger.info("Conversion Word → PDF réussie: {} → {}", 
+            logger.info("Conversion Word → PDF réussie: {} → {}",
                        wordFile.getName(), outputFile.getName());
             
         } catch (IOException e) {
@@ -58,4 +74,90 @@ public class WordToPdfService {
             throw new ConversionException("Erreur lors de la conversion Word → PDF: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Écrit le corps du document dans le PDF au fil de la lecture.
+     * Les paragraphes vides sont ignorés. Les tableaux sont en mode "large table" : ajoutés
+     * au document après leurs lignes d'en-tête (répétées sur chaque page) puis vidés vers
+     * le PdfDocument tous les conversion.word.flush.rows lignes.
+     * L'annulation de la conversion est vérifiée à chaque paragraphe et à chaque ligne.
+     */
+    private static class BodyRenderer implements DocxEventReader.BodyHandler {
+        
+        private final Document pdfDocument;
+        private final int flushRows;
+        private final ConversionContext context;
+        private Table table;
+        private int columnCount;
+        private boolean tableAdded;
+        private int rowsSinceFlush;
+        
+        BodyRenderer(Document pdfDocument, int flushRows, ConversionContext context) {
+            this.pdfDocument = pdfDocument;
+            this.flushRows = flushRows;
+            this.context = context;
+        }
+        
+        @Override
+        public void paragraph(String text) throws IOException {
+            context.checkCancelled();
+            if (!text.trim().isEmpty()) {
+                pdfDocument.add(new Paragraph(text));
+            }
+        }
+        
+        @Override
+        public void startTable(int columnCount) {
+            this.columnCount = columnCount;
+            this.table = new Table(columnCount, true);
+            this.tableAdded = false;
+            this.rowsSinceFlush = 0;
+        }
+        
+        @Override
+        public void row(List<DocxEventReader.TableCell> cells, boolean header) throws IOException {
+            context.checkCancelled();
+            // Le tableau est ajouté au document une fois ses en-têtes connus
+            if (!header && !tableAdded) {
+                pdfDocument.add(table);
+                tableAdded = true;
+            }
+            
+            int column = 0;
+            for (DocxEventReader.TableCell tableCell : cells) {
+                if (column >= columnCount) {
+                    break;
+                }
+                int span = Math.min(tableCell.columnSpan(), columnCount - column);
+                addCell(new Cell(1, span).add(new Paragraph(tableCell.text())), header);
+                column += span;
+            }
+            // Compléter les lignes plus courtes que la grille
+            for (; column < columnCount; column++) {
+                addCell(new Cell(), header);
+            }
+            
+            if (!header && ++rowsSinceFlush >= flushRows) {
+                table.flush();
+                rowsSinceFlush = 0;
+            }
+        }
+        
+        @Override
+        public void endTable() {
+            if (!tableAdded) {
+                pdfDocument.add(table);
+            }
+            table.complete();
+            table = null;
+        }
+        
+        private void addCell(Cell cell, boolean header) {
+            if (header) {
+                table.addHeaderCell(cell);
+            } else {
+                table.addCell(cell);
+            }
+        }
+    }
 }
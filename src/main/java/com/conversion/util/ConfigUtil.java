@@ -32,12 +32,17 @@ public class ConfigUtil {
         }
     }
     
+    /**
+     * Une propriété système de la JVM (-Dcle=valeur) remplace la valeur de config.properties,
+     * par exemple pour donner un conversion.node.id différent à chaque Tomcat d'une même machine.
+     */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
     }
     
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        String value = getProperty(key);
+        return value != null ? value : defaultValue;
     }
     
     public static int getIntProperty(String key, int defaultValue) {
@@ -63,5 +68,25 @@ public class ConfigUtil {
         }
         return defaultValue;
     }
+    
+    public static double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                logger.warn("Valeur invalide pour la propriété {}: {}", key, value);
+            }
+        }
+        return defaultValue;
+    }
+    
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key);
+        if (value != null) {
+            return Boolean.parseBoolean(value.trim());
+        }
+        return defaultValue;
+    }
 }
 
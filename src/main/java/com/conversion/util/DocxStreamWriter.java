@@ -0,0 +1,208 @@
+package com.Ash_Conversion.util;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Écriture d'un document Word (.docx) en flux.
+ * Les paragraphes sont sérialisés directement dans l'entrée word/document.xml de
+ * l'archive OOXML, sans construire de DOM : la mémoire utilisée ne dépend pas de
+ * la taille du document.
+ */
+public class DocxStreamWriter implements Closeable {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String XML_NS = "http://www.w3.org/XML/1998/namespace";
+
+    private static final String CONTENT_TYPES =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+        + "<Override PartName=\"/word/document.xml\" "
+        + "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+        + "<Override PartName=\"/word/styles.xml\" "
+        + "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>"
+        + "</Types>";
+
+    private static final String PACKAGE_RELS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" "
+        + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+        + "Target=\"word/document.xml\"/>"
+        + "</Relationships>";
+
+    private static final String DOCUMENT_RELS =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" "
+        + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" "
+        + "Target=\"styles.xml\"/>"
+        + "</Relationships>";
+
+    // Police 12 pt par défaut (w:sz est exprimé en demi-points)
+    private static final String STYLES =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<w:styles xmlns:w=\"" + W_NS + "\">"
+        + "<w:docDefaults><w:rPrDefault><w:rPr><w:sz w:val=\"24\"/><w:szCs w:val=\"24\"/></w:rPr></w:rPrDefault>"
+        + "<w:pPrDefault><w:pPr><w:spacing w:after=\"0\"/></w:pPr></w:pPrDefault></w:docDefaults>"
+        + "</w:styles>";
+
+    private final ZipOutputStream zip;
+    private final XMLStreamWriter xml;
+
+    /**
+     * Ouvre l'archive et écrit l'en-tête du corps du document.
+     *
+     * @param out Le flux de destination (fermé par {@link #close()})
+     * @throws IOException si l'écriture échoue
+     */
+    public DocxStreamWriter(OutputStream out) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        try {
+            writeEntry("[Content_Types].xml", CONTENT_TYPES);
+            writeEntry("_rels/.rels", PACKAGE_RELS);
+            writeEntry("word/_rels/document.xml.rels", DOCUMENT_RELS);
+            writeEntry("word/styles.xml", STYLES);
+
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(zip, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.setPrefix("w", W_NS);
+            xml.writeStartElement(W_NS, "document");
+            xml.writeNamespace("w", W_NS);
+            xml.writeStartElement(W_NS, "body");
+        } catch (IOException | XMLStreamException e) {
+            zip.close();
+            throw e instanceof IOException ioException ? ioException
+                : new IOException("Impossible d'initialiser le document Word", e);
+        }
+    }
+
+    /**
+     * Écrit un paragraphe contenant une ligne de texte. Les tabulations sont conservées.
+     *
+     * @param text Le texte du paragraphe (vide pour un paragraphe vide)
+     * @throws IOException si l'écriture échoue
+     */
+    public void writeParagraph(String text) throws IOException {
+        try {
+            String safeText = stripInvalidXmlChars(text);
+            if (safeText.isEmpty()) {
+                xml.writeEmptyElement(W_NS, "p");
+                return;
+            }
+
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "r");
+            String[] segments = safeText.split("\t", -1);
+            for (int i = 0; i < segments.length; i++) {
+                if (i > 0) {
+                    xml.writeEmptyElement(W_NS, "tab");
+                }
+                if (!segments[i].isEmpty()) {
+                    xml.writeStartElement(W_NS, "t");
+                    xml.writeAttribute("xml", XML_NS, "space", "preserve");
+                    xml.writeCharacters(segments[i]);
+                    xml.writeEndElement();
+                }
+            }
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur lors de l'écriture du paragraphe", e);
+        }
+    }
+
+    /**
+     * Écrit un saut de page.
+     *
+     * @throws IOException si l'écriture échoue
+     */
+    public void writePageBreak() throws IOException {
+        try {
+            xml.writeStartElement(W_NS, "p");
+            xml.writeStartElement(W_NS, "r");
+            xml.writeEmptyElement(W_NS, "br");
+            xml.writeAttribute(W_NS, "type", "page");
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur lors de l'écriture du saut de page", e);
+        }
+    }
+
+    /**
+     * Termine le corps du document et ferme l'archive.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeEmptyElement(W_NS, "sectPr");
+            xml.writeEndElement(); // body
+            xml.writeEndElement(); // document
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur lors de la finalisation du document Word", e);
+        } finally {
+            zip.closeEntry();
+            zip.close();
+        }
+    }
+
+    /**
+     * Écrit une entrée statique de l'archive.
+     */
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Supprime les caractères interdits en XML 1.0 (caractères de contrôle, surrogates isolés)
+     * que l'extraction PDF peut produire.
+     */
+    private static String stripInvalidXmlChars(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean valid;
+            if (Character.isHighSurrogate(c)) {
+                valid = i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1));
+                if (valid) {
+                    if (result != null) {
+                        result.append(c).append(text.charAt(i + 1));
+                    }
+                    i++;
+                    continue;
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                valid = false;
+            } else {
+                valid = c == '\t' || c == '\n' || c == '\r' || (c >= 0x20 && c <= 0xFFFD);
+            }
+
+            if (!valid && result == null) {
+                result = new StringBuilder(text.length());
+                result.append(text, 0, i);
+            } else if (valid && result != null) {
+                result.append(c);
+            }
+        }
+        return result != null ? result.toString() : text;
+    }
+}
@@ -0,0 +1,68 @@
+package com.Ash_Conversion.util;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache des programmes de police iText, partagé par tous les convertisseurs.
+ * Un FontProgram (métriques et glyphes analysés depuis le fichier de police) est analysé
+ * une seule fois par JVM puis réutilisé ; chaque document PDF crée son propre PdfFont
+ * à partir du programme en cache, car un PdfFont appartient à un seul PdfDocument.
+ */
+public final class FontCache {
+
+    public static final String HITS_METRIC = "font.cache.hits";
+    public static final String MISSES_METRIC = "font.cache.misses";
+
+    private static final ConcurrentMap<String, FontProgram> programs = new ConcurrentHashMap<>();
+
+    static {
+        MetricsRegistry.registerGauge("font.cache.size", programs::size);
+    }
+
+    private FontCache() {
+        // Classe utilitaire, pas d'instanciation
+    }
+
+    /**
+     * Crée une police pour un document à partir du programme en cache.
+     *
+     * @param fontName Nom d'une police standard (StandardFonts) ou chemin d'un fichier de police
+     * @return Une nouvelle PdfFont, à n'utiliser que dans un seul PdfDocument
+     * @throws IOException si la police ne peut pas être lue
+     */
+    public static PdfFont createFont(String fontName) throws IOException {
+        return PdfFontFactory.createFont(getProgram(fontName), PdfEncodings.WINANSI);
+    }
+
+    /**
+     * Retourne le programme de police, analysé au premier appel seulement.
+     */
+    public static FontProgram getProgram(String fontName) throws IOException {
+        boolean[] parsed = new boolean[1];
+        try {
+            FontProgram program = programs.computeIfAbsent(fontName, name -> {
+                parsed[0] = true;
+                try {
+                    // Cache interne d'iText désactivé : ce cache-ci est la seule copie
+                    return FontProgramFactory.createFont(name, false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            MetricsRegistry.increment(parsed[0] ? MISSES_METRIC : HITS_METRIC);
+            return program;
+        } catch (UncheckedIOException e) {
+            MetricsRegistry.increment(MISSES_METRIC);
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.Ash_Conversion.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registre des métriques de l'application (compteurs, jauges et durées), partagé par tout le processus.
+ * Les compteurs sont des LongAdder : incrémentés depuis les threads de conversion sans contention.
+ * Le contenu est exposé en JSON par l'endpoint /api/metrics.
+ */
+public final class MetricsRegistry {
+
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+        // Classe utilitaire, pas d'instanciation
+    }
+
+    /**
+     * Incrémente un compteur (créé au premier appel).
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public static long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Enregistre une jauge, lue à chaque consultation des métriques (remplace une jauge du même nom).
+     */
+    public static void registerGauge(String name, Supplier<? extends Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Enregistre une durée en millisecondes.
+     */
+    public static void recordTime(String name, long millis) {
+        timers.computeIfAbsent(name, key -> new Timer()).record(millis);
+    }
+
+    /**
+     * Photographie de toutes les métriques, triées par nom.
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+
+        Map<String, Number> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.get()));
+
+        Map<String, Object> timerValues = new TreeMap<>();
+        timers.forEach((name, timer) -> timerValues.put(name, timer.snapshot()));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("counters", counterValues);
+        snapshot.put("gauges", gaugeValues);
+        snapshot.put("timers", timerValues);
+        return snapshot;
+    }
+
+    /**
+     * Nombre, total et maximum des durées enregistrées.
+     */
+    private static final class Timer {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+
+        void record(long millis) {
+            count.increment();
+            totalMillis.add(millis);
+            maxMillis.accumulate(millis);
+        }
+
+        Map<String, Long> snapshot() {
+            long n = count.sum();
+            long total = totalMillis.sum();
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("count", n);
+            values.put("totalMs", total);
+            values.put("meanMs", n > 0 ? total / n : 0);
+            values.put("maxMs", maxMillis.get());
+            return values;
+        }
+    }
+}
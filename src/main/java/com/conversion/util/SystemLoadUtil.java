@@ -0,0 +1,51 @@
+package com.Ash_Conversion.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Charge de la JVM : CPU du processus et occupation du tas.
+ */
+public final class SystemLoadUtil {
+
+    private SystemLoadUtil() {
+        // Classe utilitaire, pas d'instanciation
+    }
+
+    /**
+     * Charge CPU récente du processus, entre 0 et 1 (tous les cœurs confondus).
+     *
+     * @return La charge, ou -1 si la JVM ne la fournit pas
+     */
+    public static double processCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getProcessCpuLoad();
+        }
+        return -1;
+    }
+
+    /**
+     * Occupation du tas après le dernier GC de l'ancienne génération, entre 0 et 1.
+     * Contrairement au tas utilisé à l'instant, elle ne compte pas les objets morts
+     * en attente de collecte : c'est la mémoire réellement retenue.
+     * À défaut (aucun GC encore, collecteur sans ancienne génération), tas utilisé / tas maximal.
+     */
+    public static double heapOccupancy() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (pool.getType() != MemoryType.HEAP || !(name.contains("Old") || name.contains("Tenured"))) {
+                continue;
+            }
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc != null && afterGc.getMax() > 0 && afterGc.getUsed() > 0) {
+                return (double) afterGc.getUsed() / afterGc.getMax();
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+    }
+}
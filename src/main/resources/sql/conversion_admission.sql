@@ -0,0 +1,4 @@
+-- Contrôle d'admission des conversions (après conversion_fairness.sql).
+-- Le débit récent (conversions terminées par minute) sert à estimer le Retry-After d'un refus.
+
+CREATE INDEX idx_file_jobs_processed_at ON file_jobs (processed_at);
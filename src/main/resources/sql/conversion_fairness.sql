@@ -0,0 +1,4 @@
+-- Part équitable entre utilisateurs (après conversion_scheduling.sql).
+-- La réservation compte les conversions en cours de chaque utilisateur.
+
+CREATE INDEX idx_file_jobs_status_user ON file_jobs (status, user_id);
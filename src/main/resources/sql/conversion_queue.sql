@@ -0,0 +1,17 @@
+-- File de conversion persistante sur file_jobs (statut QUEUED, baux des conversions en cours).
+-- À appliquer sur une base existante (schema-generation est à 'none' dans persistence.xml).
+-- MySQL 8.0 minimum : la réservation utilise SELECT ... FOR UPDATE SKIP LOCKED.
+
+ALTER TABLE file_jobs
+    ADD COLUMN queued_at DATETIME NULL,
+    ADD COLUMN lease_owner VARCHAR(100) NULL,
+    ADD COLUMN lease_token VARCHAR(36) NULL,
+    ADD COLUMN lease_until DATETIME NULL,
+    ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+
+-- Prise en charge des conversions en file, dans l'ordre d'arrivée
+CREATE INDEX idx_file_jobs_queue ON file_jobs (status, queued_at, id);
+
+-- Relecture d'un lot réservé, reprise des conversions d'un nœud
+CREATE INDEX idx_file_jobs_lease_token ON file_jobs (lease_token);
+CREATE INDEX idx_file_jobs_lease_owner ON file_jobs (lease_owner, status);
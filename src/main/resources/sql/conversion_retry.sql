@@ -0,0 +1,6 @@
+-- Nouveaux essais différés des conversions en échec transitoire (après conversion_queue.sql).
+-- Le statut DEAD_LETTER (échec définitif après nouveaux essais) tient dans la colonne status existante.
+
+ALTER TABLE file_jobs
+    ADD COLUMN next_attempt_at DATETIME NULL,
+    ADD COLUMN error_history TEXT NULL;
@@ -0,0 +1,5 @@
+-- Coût estimé des conversions, pour l'ordre "plus court d'abord" (après conversion_submission.sql).
+-- Exprimé en Ko équivalents, calculé à la mise en file (voir ConversionCostEstimator).
+
+ALTER TABLE file_jobs
+    ADD COLUMN estimated_cost BIGINT NULL;
@@ -0,0 +1,5 @@
+-- Clé d'idempotence de la dernière demande de conversion (après conversion_retry.sql).
+-- Une demande qui rejoue la même clé n'est pas remise en file.
+
+ALTER TABLE file_jobs
+    ADD COLUMN submission_key VARCHAR(64) NULL;
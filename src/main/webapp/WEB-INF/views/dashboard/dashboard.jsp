@@ -387,6 +387,11 @@ body {
                                                         <i class="bi bi-clock"></i> En attente
                                                     </span>
                                                 </c:when>
+                                                <c:when test="${fileJob.status == 'QUEUED'}">
+                                                    <span class="badge bg-secondary badge-status">
+                                                        <i class="bi bi-hourglass-split"></i> En file
+                                                    </span>
+                                                </c:when>
                                                 <c:when test="${fileJob.status == 'PROCESSING'}">
                                                     <span class="badge bg-info badge-status">
                                                         <i class="bi bi-gear"></i> En cours
@@ -397,6 +402,16 @@ body {
                                                         <i class="bi bi-x-circle"></i> Échoué
                                                     </span>
                                                 </c:when>
+                                                <c:when test="${fileJob.status == 'DEAD_LETTER'}">
+                                                    <span class="badge bg-dark badge-status" title="${fn:escapeXml(fileJob.errorHistory)}">
+                                                        <i class="bi bi-x-octagon"></i> Échoué (${fileJob.attempts} essais)
+                                                    </span>
+                                                </c:when>
+                                                <c:when test="${fileJob.status == 'CANCELLED'}">
+                                                    <span class="badge bg-secondary badge-status">
+                                                        <i class="bi bi-slash-circle"></i> Annulé
+                                                    </span>
+                                                </c:when>
                                             </c:choose>
                                         </td>
                                         <td>
@@ -417,12 +432,18 @@ body {
                                         </td>
                                         <td>
                                             <div class="btn-group btn-group-sm" role="group">
-                                                <c:if test="${fileJob.status == 'UPLOADED' || fileJob.status == 'PENDING' || fileJob.status == 'FAILED'}">
+                                                <c:if test="${fileJob.status == 'UPLOADED' || fileJob.status == 'PENDING' || fileJob.status == 'FAILED' || fileJob.status == 'DEAD_LETTER' || fileJob.status == 'CANCELLED'}">
                                                     <button class="btn btn-outline-primary btn-action" 
                                                             title="Convertir" onclick="convertFile(${fileJob.id}, '${fileJob.conversionType}')">
                                                         <i class="bi bi-arrow-repeat"></i>
                                                     </button>
                                                 </c:if>
+                                                <c:if test="${fileJob.status == 'QUEUED' || fileJob.status == 'PROCESSING'}">
+                                                    <button class="btn btn-outline-warning btn-action" 
+                                                            title="Annuler la conversion" onclick="cancelConversion(${fileJob.id})">
+                                                        <i class="bi bi-stop-circle"></i>
+                                                    </button>
+                                                </c:if>
                                                 <c:if test="${fileJob.status == 'COMPLETED'}">
                                                     <button class="btn btn-outline-info btn-action" 
                                                             title="Prévisualiser" onclick="previewFile(${fileJob.id})">
@@ -628,10 +649,10 @@ body {
         .then(response => response.json())
         .then(data => {
             if (data.success) {
-                alert('Conversion démarrée !');
+                alert(data.data && data.data.duplicate ? 'Conversion déjà demandée' : 'Conversion mise en file !');
                 setTimeout(() => location.reload(), 2000);
             } else {
-                alert('Erreur: ' + (data.message || 'Erreur inconnue'));
+                alert('Erreur: ' + (data.error || data.message || 'Erreur inconnue'));
             }
         })
         .catch(error => {
@@ -640,6 +661,29 @@ body {
         });
     }
     
+    // Annulation d'une conversion en file ou en cours
+    function cancelConversion(id) {
+        fetch('${pageContext.request.contextPath}/api/convert/cancel?id=' + id + '&_csrf=' + encodeURIComponent(csrfToken), {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/x-www-form-urlencoded',
+                'X-CSRF-Token': csrfToken
+            }
+        })
+        .then(response => response.json())
+        .then(data => {
+            if (data.success) {
+                location.reload();
+            } else {
+                alert('Erreur: ' + (data.error || data.message || 'Erreur inconnue'));
+            }
+        })
+        .catch(error => {
+            console.error('Erreur:', error);
+            alert('Erreur lors de l\'annulation de la conversion');
+        });
+    }
+    
     // Téléchargement
     function downloadFile(id) {
         window.location.href = '${pageContext.request.contextPath}/api/download?id=' + id;